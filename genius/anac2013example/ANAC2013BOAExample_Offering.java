@@ -2,7 +2,9 @@ package anac2013example;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.Random;
 
+import group23.BidSampler;
 import negotiator.Bid;
 import negotiator.NegotiationResult;
 import negotiator.bidding.BidDetails;
@@ -24,6 +26,9 @@ public class ANAC2013BOAExample_Offering extends OfferingStrategy {
 
 	/** Minimum utily the opponent's bid should have. */
 	private double breakoff = 0.5;
+	/** Draws bids above the breakoff, null if the domain is not supported. */
+	private BidSampler sampler;
+	private final Random random = new Random();
 
 	/**
 	 * Empty constructor called by BOA framework.
@@ -41,6 +46,7 @@ public class ANAC2013BOAExample_Offering extends OfferingStrategy {
 		if (dataFromOffering != null) {
 			breakoff = (Double) dataFromOffering;
 		}
+		sampler = BidSampler.create(negotiationSession.getUtilitySpace());
 	}
 
 	@Override
@@ -49,13 +55,25 @@ public class ANAC2013BOAExample_Offering extends OfferingStrategy {
 	}
 
 	/**
-	 * Offer a random bid with a utility higher than the target breakoff.
+	 * Offer a random bid with a utility higher than the target breakoff. The
+	 * bid is drawn from the good enough bids directly if possible, as drawing
+	 * random bids until one is good enough never ends if the breakoff is
+	 * above the best bid.
 	 */
 	@Override
 	public BidDetails determineNextBid() {
 
 		Bid bid = null;
 		try {
+			if (sampler != null) {
+				bid = sampler.sample(breakoff, random);
+				if (bid == null) {
+					// nothing reaches the breakoff, offer our best
+					bid = sampler.getMaxBid();
+				}
+				nextBid = new BidDetails(bid, negotiationSession.getUtilitySpace().getUtility(bid));
+				return nextBid;
+			}
 			do {
 				bid = negotiationSession.getUtilitySpace().getDomain().getRandomBid(null);
 			} while (negotiationSession.getUtilitySpace().getUtility(bid) < breakoff);
@@ -0,0 +1,281 @@
+package anac2013example;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import negotiator.Bid;
+import negotiator.BidHistory;
+import negotiator.Domain;
+import negotiator.bidding.BidDetails;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.IssueInteger;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import negotiator.issue.ValueInteger;
+import negotiator.issue.ValueReal;
+
+/**
+ * A bid history packed into a byte array, for saving with saveSessionData.
+ * 
+ * Every bid is stored as a variable length number per issue (the index of a
+ * discrete value, the offset of an integer value from the lower bound, or the
+ * raw bits of a real value), the time since the previous bid in microseconds
+ * and the utility in 1/65535 steps. Bids are encoded once when they are added,
+ * so saving writes a single array instead of the whole object graph of a
+ * BidHistory, and nothing is decoded after loading until the bids are
+ * actually read.
+ * 
+ * The indices and offsets only mean something in the domain the bids were
+ * made in, so the history keeps a fingerprint of that domain's issues (their
+ * numbers, types and value counts or bounds) and refuses to decode in a domain
+ * that doesn't match it.
+ */
+public class CompactBidHistory implements Serializable {
+
+	private static final long serialVersionUID = 2L;
+	private static final double TIME_STEPS = 1e6;
+	private static final double UTILITY_STEPS = 65535;
+
+	private transient byte[] data = new byte[64];
+	private transient int length;
+	private transient int size;
+	private transient int issues = -1;
+	/** Fingerprint of the issues of the domain, see {@link #fingerprint(List)} */
+	private transient long fingerprint;
+	/** Time of the last bid, in microseconds */
+	private transient long lastTime;
+	private transient double bestUtility;
+
+	/**
+	 * Converts a history saved by an older version.
+	 */
+	public static CompactBidHistory of(BidHistory history) {
+		CompactBidHistory compact = new CompactBidHistory();
+		for (BidDetails bid : history.getHistory()) {
+			compact.add(bid);
+		}
+		return compact;
+	}
+
+	/**
+	 * Encodes a bid onto the end of the history.
+	 */
+	public void add(BidDetails details) {
+		Bid bid = details.getBid();
+		List<Issue> domainIssues = bid.getIssues();
+		long domain = fingerprint(domainIssues);
+		if (issues < 0) {
+			issues = domainIssues.size();
+			fingerprint = domain;
+		} else if (issues != domainIssues.size()) {
+			throw new IllegalArgumentException("Bid has " + domainIssues.size() + " issues, history has " + issues);
+		} else if (fingerprint != domain) {
+			throw new IllegalArgumentException("Bid is from a different domain than the history");
+		}
+
+		int start = length;
+		for (Issue issue : domainIssues) {
+			Value value = bid.getValue(issue.getNumber());
+			if (issue instanceof IssueDiscrete) {
+				int index = ((IssueDiscrete) issue).getValueIndex((ValueDiscrete) value);
+				if (index < 0) {
+					// drop what we wrote of this bid already
+					length = start;
+					throw new IllegalArgumentException("Value " + value + " is not a value of issue " + issue.getName());
+				}
+				writeNumber(index);
+			} else if (issue instanceof IssueInteger) {
+				writeNumber(((ValueInteger) value).getValue() - ((IssueInteger) issue).getLowerBound());
+			} else {
+				long bits = Double.doubleToLongBits(((ValueReal) value).getValue());
+				for (int shift = 0; shift < 64; shift += 8) {
+					writeByte((int) (bits >>> shift));
+				}
+			}
+		}
+
+		long time = Math.round(details.getTime() * TIME_STEPS);
+		writeNumber(time - lastTime);
+		lastTime = time;
+		int utility = (int) Math.round(Math.max(0, Math.min(1, details.getMyUndiscountedUtil())) * UTILITY_STEPS);
+		writeByte(utility);
+		writeByte(utility >>> 8);
+
+		bestUtility = Math.max(bestUtility, details.getMyUndiscountedUtil());
+		size++;
+	}
+
+	/**
+	 * Hash of the number, type and values or bounds of every issue, in order.
+	 */
+	private static long fingerprint(List<Issue> domainIssues) {
+		long hash = 17;
+		for (Issue issue : domainIssues) {
+			hash = hash * 31 + issue.getNumber();
+			if (issue instanceof IssueDiscrete) {
+				hash = hash * 31 + 1;
+				hash = hash * 31 + ((IssueDiscrete) issue).getNumberOfValues();
+			} else if (issue instanceof IssueInteger) {
+				hash = hash * 31 + 2;
+				hash = hash * 31 + ((IssueInteger) issue).getLowerBound();
+				hash = hash * 31 + ((IssueInteger) issue).getUpperBound();
+			} else {
+				hash = hash * 31 + 3;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Zig-zag so small negative numbers stay small, then 7 bits a byte.
+	 */
+	private void writeNumber(long number) {
+		long zigzag = (number << 1) ^ (number >> 63);
+		while ((zigzag & ~0x7FL) != 0) {
+			writeByte((int) (zigzag & 0x7F) | 0x80);
+			zigzag >>>= 7;
+		}
+		writeByte((int) zigzag);
+	}
+
+	private void writeByte(int b) {
+		if (length == data.length) {
+			data = Arrays.copyOf(data, data.length * 2);
+		}
+		data[length++] = (byte) b;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return number of bytes the bids take up.
+	 */
+	public int getEncodedSize() {
+		return length;
+	}
+
+	/**
+	 * @return highest utility in the history, without decoding it.
+	 */
+	public double getBestUtility() {
+		return bestUtility;
+	}
+
+	/**
+	 * Decodes the bids one at a time, in the order they were added.
+	 * 
+	 * @param domain
+	 *            the domain the bids were made in.
+	 * @throws IllegalArgumentException
+	 *             if the domain's issues don't match the ones the bids were
+	 *             made with.
+	 */
+	public Iterator<BidDetails> iterator(final Domain domain) {
+		final List<Issue> domainIssues = domain.getIssues();
+		if (size > 0 && domainIssues.size() != issues) {
+			throw new IllegalArgumentException("History has " + issues + " issues, domain has " + domainIssues.size());
+		}
+		if (size > 0 && fingerprint(domainIssues) != fingerprint) {
+			throw new IllegalArgumentException("History was made in a different domain than " + domain.getName());
+		}
+		return new Iterator<BidDetails>() {
+			private int index;
+			private int position;
+			private long time;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public BidDetails next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				HashMap<Integer, Value> values = new HashMap<Integer, Value>();
+				for (Issue issue : domainIssues) {
+					if (issue instanceof IssueDiscrete) {
+						values.put(issue.getNumber(), ((IssueDiscrete) issue).getValue((int) readNumber()));
+					} else if (issue instanceof IssueInteger) {
+						values.put(issue.getNumber(), new ValueInteger((int) (((IssueInteger) issue).getLowerBound() + readNumber())));
+					} else {
+						long bits = 0;
+						for (int shift = 0; shift < 64; shift += 8) {
+							bits |= (data[position++] & 0xFFL) << shift;
+						}
+						values.put(issue.getNumber(), new ValueReal(Double.longBitsToDouble(bits)));
+					}
+				}
+				time += readNumber();
+				int utility = (data[position] & 0xFF) | (data[position + 1] & 0xFF) << 8;
+				position += 2;
+				index++;
+				return new BidDetails(new Bid(domain, values), utility / UTILITY_STEPS, time / TIME_STEPS);
+			}
+
+			private long readNumber() {
+				long zigzag = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = data[position++];
+					zigzag |= (long) (b & 0x7F) << shift;
+					shift += 7;
+				} while ((b & 0x80) != 0);
+				return (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Decodes everything into a normal bid history.
+	 */
+	public BidHistory toBidHistory(Domain domain) {
+		BidHistory history = new BidHistory();
+		for (Iterator<BidDetails> bids = iterator(domain); bids.hasNext();) {
+			history.add(bids.next());
+		}
+		return history;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(issues);
+		out.writeLong(fingerprint);
+		out.writeLong(lastTime);
+		out.writeDouble(bestUtility);
+		out.writeInt(length);
+		out.write(data, 0, length);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException {
+		size = in.readInt();
+		issues = in.readInt();
+		fingerprint = in.readLong();
+		lastTime = in.readLong();
+		bestUtility = in.readDouble();
+		length = in.readInt();
+		data = new byte[Math.max(64, length)];
+		in.readFully(data, 0, length);
+	}
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
 
+import group23.BidSampler;
 import negotiator.Agent;
 import negotiator.Bid;
 import negotiator.BidHistory;
@@ -39,13 +40,16 @@ public class SimpleAgentSavingBidHistory extends Agent {
 	 */
 	private static double MINIMUM_BID_UTILITY = 0.0;
 
-	private BidHistory currSessOppBidHistory;
-	private BidHistory prevSessOppBidHistory;
+	// Kept packed, so saving writes one array and loading decodes nothing
+	// until the bids are read
+	private CompactBidHistory currSessOppBidHistory;
+	private CompactBidHistory prevSessOppBidHistory;
 	private Bid lastPartnerBid;
+	private BidSampler sampler;
 
 	public SimpleAgentSavingBidHistory() {
 		super();
-		this.currSessOppBidHistory = new BidHistory();
+		this.currSessOppBidHistory = new CompactBidHistory();
 	}
 
 	/**
@@ -53,6 +57,7 @@ public class SimpleAgentSavingBidHistory extends Agent {
 	 */
 	public void init() {
 		MINIMUM_BID_UTILITY = utilitySpace.getReservationValueUndiscounted();
+		sampler = BidSampler.create(utilitySpace);
 		myBeginSession();
 	}
 
@@ -64,7 +69,9 @@ public class SimpleAgentSavingBidHistory extends Agent {
 		// ---- Loading from agent's function "loadSessionData"
 		Serializable prev = this.loadSessionData();
 		if (!(prev == null)) {
-			prevSessOppBidHistory = (BidHistory) prev;
+			// histories saved by older versions are whole BidHistory objects
+			prevSessOppBidHistory = prev instanceof BidHistory ? CompactBidHistory.of((BidHistory) prev)
+					: (CompactBidHistory) prev;
 			System.out
 					.println("---------/////////// NEW  NEW  NEW /////////////----------");
 			System.out.println("The size of the previous BidHistory is: "
@@ -161,7 +168,8 @@ public class SimpleAgentSavingBidHistory extends Agent {
 		// ---- Saving from agent's function "saveSessionData"
 		this.saveSessionData(currSessOppBidHistory);
 		System.out.println(state + "The size of the BidHistory I'm saving is: "
-				+ currSessOppBidHistory.size());
+				+ currSessOppBidHistory.size() + " ("
+				+ currSessOppBidHistory.getEncodedSize() + " bytes)");
 	}
 
 	private boolean isAcceptable(double offeredUtilFromOpponent,
@@ -210,6 +218,12 @@ public class SimpleAgentSavingBidHistory extends Agent {
 		List<Issue> issues = utilitySpace.getDomain().getIssues();
 		Random randomnr = new Random();
 
+		// Draw from the bids above MINIMUM_BID_UTILITY directly if we can,
+		// null if there are none
+		if (sampler != null) {
+			return sampler.sample(MINIMUM_BID_UTILITY, randomnr);
+		}
+
 		// create a random bid with utility>MINIMUM_BID_UTIL.
 		// note that this may never succeed if you set MINIMUM too high!!!
 		// in that case we will search for a bid till the time is up (3 minutes)
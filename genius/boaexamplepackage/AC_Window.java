@@ -0,0 +1,112 @@
+package boaexamplepackage;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import group23.UtilityWindow;
+import negotiator.bidding.BidDetails;
+import negotiator.boaframework.AcceptanceStrategy;
+import negotiator.boaframework.Actions;
+import negotiator.boaframework.BOAparameter;
+import negotiator.boaframework.NegotiationSession;
+import negotiator.boaframework.OfferingStrategy;
+import negotiator.boaframework.OpponentModel;
+
+/**
+ * This Acceptance Condition accepts like {@link AC_Next}, and after time t
+ * also accepts an opponent bid which is at least as good as the maximum or
+ * average of the opponent's recent bids. Recent is the last w bids, the bids
+ * of the last s of the negotiation time, or both.
+ * 
+ * The window is kept up to date with only the new bids in the history, so
+ * every turn costs the same however long the negotiation runs.
+ * 
+ * Decoupling Negotiating Agents to Explore the Space of Negotiation Strategies
+ * T. Baarslag, K. Hindriks, M. Hendrikx, A. Dirkzwager, C.M. Jonker
+ * 
+ */
+public class AC_Window extends AcceptanceStrategy {
+
+	private double a;
+	private double b;
+	private double t;
+	private boolean average;
+	private UtilityWindow window;
+	/** Number of opponent bids already in the window */
+	private int seen;
+
+	/**
+	 * Empty constructor for the BOA framework.
+	 */
+	public AC_Window() {
+	}
+
+	@Override
+	public void init(NegotiationSession negoSession, OfferingStrategy strat, OpponentModel opponentModel,
+			Map<String, Double> parameters) throws Exception {
+		this.negotiationSession = negoSession;
+		this.offeringStrategy = strat;
+
+		a = parameters.get("a") != null ? parameters.get("a") : 1;
+		b = parameters.get("b") != null ? parameters.get("b") : 0;
+		t = parameters.get("t") != null ? parameters.get("t") : 0.98;
+		average = parameters.get("avg") != null && parameters.get("avg") > 0;
+		int w = parameters.get("w") != null && parameters.get("w") > 0 ? parameters.get("w").intValue() : Integer.MAX_VALUE;
+		double s = parameters.get("s") != null && parameters.get("s") > 0 ? parameters.get("s") : Double.POSITIVE_INFINITY;
+		if (w == Integer.MAX_VALUE && s == Double.POSITIVE_INFINITY) {
+			throw new Exception("Either the window size \"w\" or the time span \"s\" has to be set.");
+		}
+		window = new UtilityWindow(w, s);
+		seen = 0;
+	}
+
+	@Override
+	public String printParameters() {
+		return "[a: " + a + " b: " + b + " t: " + t + (average ? " avg" : " max") + "]";
+	}
+
+	@Override
+	public Actions determineAcceptability() {
+		List<BidDetails> history = negotiationSession.getOpponentBidHistory().getHistory();
+		for (; seen < history.size(); seen++) {
+			window.add(history.get(seen).getMyUndiscountedUtil(), history.get(seen).getTime());
+		}
+		window.expire(negotiationSession.getTime());
+
+		double nextMyBidUtil = offeringStrategy.getNextBid().getMyUndiscountedUtil();
+		double lastOpponentBidUtil = negotiationSession.getOpponentBidHistory().getLastBidDetails()
+				.getMyUndiscountedUtil();
+
+		if (a * lastOpponentBidUtil + b >= nextMyBidUtil) {
+			return Actions.Accept;
+		}
+		if (negotiationSession.getTime() >= t && !window.isEmpty()
+				&& lastOpponentBidUtil >= (average ? window.average() : window.max())) {
+			return Actions.Accept;
+		}
+		return Actions.Reject;
+	}
+
+	@Override
+	public Set<BOAparameter> getParameterSpec() {
+
+		Set<BOAparameter> set = new HashSet<BOAparameter>();
+		set.add(new BOAparameter("a", 1.0,
+				"Accept when the opponent's utility * a + b is greater than the utility of our current bid"));
+		set.add(new BOAparameter("b", 0.0,
+				"Accept when the opponent's utility * a + b is greater than the utility of our current bid"));
+		set.add(new BOAparameter("t", 0.98, "Time after which the window condition applies"));
+		set.add(new BOAparameter("w", 10.0, "Number of recent opponent bids in the window (0 = no limit)"));
+		set.add(new BOAparameter("s", 0.0, "Time span of the window (0 = no limit)"));
+		set.add(new BOAparameter("avg", 0.0, "Compare to the average instead of the maximum of the window (1 = on)"));
+
+		return set;
+	}
+
+	@Override
+	public String getName() {
+		return "AC_Window example";
+	}
+}
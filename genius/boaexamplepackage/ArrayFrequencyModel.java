@@ -0,0 +1,315 @@
+package boaexamplepackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import negotiator.Bid;
+import negotiator.bidding.BidDetails;
+import negotiator.boaframework.BOAparameter;
+import negotiator.boaframework.NegotiationSession;
+import negotiator.boaframework.OpponentModel;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Objective;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import negotiator.utility.AbstractUtilitySpace;
+import negotiator.utility.AdditiveUtilitySpace;
+import negotiator.utility.Evaluator;
+import negotiator.utility.EvaluatorDiscrete;
+
+/**
+ * The HardHeaded Frequency Model of {@link HardHeadedFrequencyModel} kept in
+ * primitive arrays instead of an AdditiveUtilitySpace.
+ * 
+ * Issue weights are a plain array over their running sum and value counts are
+ * plain ints with a running maximum per issue. An update compares the new bid
+ * to the previous one remembered in an array and allocates nothing. The
+ * weights are changed one issue at a time, in the order the original walks its
+ * issues, each followed by the renormalization
+ * {@link AdditiveUtilitySpace#setWeight(Objective, double)} does. That
+ * renormalization divides every weight by their sum, so here it only updates
+ * the sum, and an update is O(issues) while the weights come out the same as
+ * the original's. {@link FrequencyModelCheck} compares the two.
+ * The weighted, normalized scores are only worked out when a bid is evaluated
+ * after the model changed.
+ * 
+ * The opponent utility space is built from the arrays when someone asks for
+ * it, once per model version.
+ */
+public class ArrayFrequencyModel extends OpponentModel implements BatchEvaluation {
+
+	private double learnCoef;
+	private int learnValueAddition;
+	private int amountOfIssues;
+
+	/** Rescale the weights once their sum gets this far from one */
+	private static final double RESCALE = 1e100;
+
+	private IssueDiscrete[] issues;
+	/** Position of every value of an issue in the flat arrays */
+	private List<Map<Value, Integer>> positions;
+	/** First position of every issue, plus the total at the end */
+	private int[] offsets;
+	/** Weight of issue i is weights[i] / weightSum */
+	private double[] weights;
+	private double weightSum;
+	/**
+	 * Issues in the order the original updates their weights, which is the
+	 * order of a HashMap keyed by issue number
+	 */
+	private int[] order;
+	/**
+	 * Issue whose weight the update of order[k] sets, the original sets the
+	 * domain objective at the index of the issue number, -1 if that is not an
+	 * issue
+	 */
+	private int[] targets;
+	/** How often every value was offered, starting at one */
+	private int[] counts;
+	/** Highest count of every issue */
+	private int[] maxCounts;
+	/** Positions of the values of the previous and latest opponent bid */
+	private int[] previous, latest;
+	private boolean hasPrevious;
+
+	private long version;
+	/** Weighted, normalized evaluation of every value */
+	private double[] scores;
+	private long scoresVersion = -1;
+	private AdditiveUtilitySpace space;
+	private long spaceVersion = -1;
+
+	@Override
+	public void init(NegotiationSession negotiationSession, Map<String, Double> parameters) {
+		super.init(negotiationSession, parameters);
+		this.negotiationSession = negotiationSession;
+		if (parameters != null && parameters.get("l") != null) {
+			learnCoef = parameters.get("l");
+		} else {
+			learnCoef = 0.2;
+		}
+		learnValueAddition = 1;
+		initializeModel();
+	}
+
+	private void initializeModel() {
+		List<Issue> domainIssues = negotiationSession.getDomain().getIssues();
+		amountOfIssues = domainIssues.size();
+		issues = new IssueDiscrete[amountOfIssues];
+		positions = new ArrayList<Map<Value, Integer>>(amountOfIssues);
+		offsets = new int[amountOfIssues + 1];
+		for (int i = 0; i < amountOfIssues; i++) {
+			issues[i] = (IssueDiscrete) domainIssues.get(i);
+			Map<Value, Integer> issuePositions = new HashMap<Value, Integer>();
+			int position = offsets[i];
+			for (ValueDiscrete vd : issues[i].getValues())
+				issuePositions.put(vd, position++);
+			positions.add(issuePositions);
+			offsets[i + 1] = position;
+		}
+
+		weights = new double[amountOfIssues];
+		Arrays.fill(weights, 1D / (double) amountOfIssues);
+		weightSum = 1;
+		HashMap<Integer, Integer> numbers = new HashMap<Integer, Integer>();
+		for (int i = 0; i < amountOfIssues; i++)
+			numbers.put(issues[i].getNumber(), i);
+		List<Objective> objectives = negotiationSession.getDomain().getObjectives();
+		order = new int[amountOfIssues];
+		targets = new int[amountOfIssues];
+		int k = 0;
+		for (Entry<Integer, Integer> e : numbers.entrySet()) {
+			order[k] = e.getValue();
+			targets[k] = -1;
+			int number = e.getKey();
+			if (number >= 0 && number < objectives.size()) {
+				for (int i = 0; i < amountOfIssues; i++) {
+					if (issues[i] == objectives.get(number))
+						targets[k] = i;
+				}
+			}
+			k++;
+		}
+		counts = new int[offsets[amountOfIssues]];
+		Arrays.fill(counts, 1);
+		maxCounts = new int[amountOfIssues];
+		Arrays.fill(maxCounts, 1);
+		previous = new int[amountOfIssues];
+		latest = new int[amountOfIssues];
+		scores = new double[counts.length];
+	}
+
+	/**
+	 * Same update as {@link HardHeadedFrequencyModel#updateModel(Bid, double)},
+	 * comparing against the previous bid given to this method instead of the
+	 * session history.
+	 */
+	@Override
+	public void updateModel(Bid opponentBid, double time) {
+		int[] swap = previous;
+		previous = latest;
+		latest = swap;
+		for (int i = 0; i < amountOfIssues; i++) {
+			Integer position = positions.get(i).get(opponentBid.getValue(issues[i].getNumber()));
+			latest[i] = position == null ? -1 : position;
+		}
+		boolean first = !hasPrevious;
+		hasPrevious = true;
+		if (first) {
+			return;
+		}
+		version++;
+
+		int numberOfUnchanged = 0;
+		for (int i = 0; i < amountOfIssues; i++) {
+			if (latest[i] == previous[i])
+				numberOfUnchanged++;
+		}
+
+		double goldenValue = learnCoef / (double) amountOfIssues;
+		double totalSum = 1D + goldenValue * (double) numberOfUnchanged;
+		double maximumWeight = 1D - ((double) amountOfIssues) * goldenValue / totalSum;
+
+		// re-weigh the issues one at a time, renormalizing after each
+		for (int k = 0; k < amountOfIssues; k++) {
+			int i = order[k];
+			if (targets[k] < 0)
+				continue;
+			if (latest[i] == previous[i] && weight(i) < maximumWeight)
+				setWeight(targets[k], (weight(i) + goldenValue) / totalSum);
+			else
+				setWeight(targets[k], weight(i) / totalSum);
+		}
+
+		for (int i = 0; i < amountOfIssues; i++) {
+			int position = latest[i];
+			if (position >= 0) {
+				counts[position] += learnValueAddition;
+				if (counts[position] > maxCounts[i])
+					maxCounts[i] = counts[position];
+			}
+		}
+	}
+
+	private double weight(int issue) {
+		return weights[issue] / weightSum;
+	}
+
+	/**
+	 * Sets the weight of an issue and scales all weights back to a sum of one
+	 * the way {@link AdditiveUtilitySpace#setWeight(Objective, double)} does.
+	 * Scaling them all is left to the sum they are divided by.
+	 */
+	private void setWeight(int issue, double weight) {
+		double raw = weight * weightSum;
+		weightSum += raw - weights[issue];
+		weights[issue] = raw;
+		if (weightSum > RESCALE || weightSum < 1 / RESCALE) {
+			for (int i = 0; i < amountOfIssues; i++)
+				weights[i] /= weightSum;
+			weightSum = 1;
+		}
+	}
+
+	@Override
+	public double getBidEvaluation(Bid bid) {
+		double[] table = scoreTable();
+		double result = 0;
+		for (int i = 0; i < amountOfIssues; i++) {
+			Integer position = positions.get(i).get(bid.getValue(issues[i].getNumber()));
+			if (position != null)
+				result += table[position];
+		}
+		return result;
+	}
+
+	@Override
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public double[] getBidEvaluations(List<BidDetails> bids) {
+		double[] result = new double[bids.size()];
+		for (int b = 0; b < result.length; b++)
+			result[b] = getBidEvaluation(bids.get(b).getBid());
+		return result;
+	}
+
+	private double[] scoreTable() {
+		if (scoresVersion != version) {
+			for (int i = 0; i < amountOfIssues; i++) {
+				double weight = weight(i);
+				for (int position = offsets[i]; position < offsets[i + 1]; position++)
+					scores[position] = weight * ((double) counts[position] / maxCounts[i]);
+			}
+			scoresVersion = version;
+		}
+		return scores;
+	}
+
+	@Override
+	public double getWeight(Issue issue) {
+		for (int i = 0; i < amountOfIssues; i++) {
+			if (issues[i].getNumber() == issue.getNumber())
+				return weight(i);
+		}
+		return 0;
+	}
+
+	@Override
+	public double[] getIssueWeights() {
+		double[] result = new double[amountOfIssues];
+		for (int i = 0; i < amountOfIssues; i++)
+			result[i] = weight(i);
+		return result;
+	}
+
+	/**
+	 * Builds the utility space the original model would hold from the arrays,
+	 * again only after the model changed.
+	 */
+	@Override
+	public AbstractUtilitySpace getOpponentUtilitySpace() {
+		if (space != null && spaceVersion == version)
+			return space;
+		space = new AdditiveUtilitySpace(negotiationSession.getDomain());
+		for (Entry<Objective, Evaluator> e : space.getEvaluators()) {
+			for (int i = 0; i < amountOfIssues; i++) {
+				if (issues[i].getNumber() != e.getKey().getNumber())
+					continue;
+				space.unlock(e.getKey());
+				e.getValue().setWeight(weight(i));
+				try {
+					for (Entry<Value, Integer> position : positions.get(i).entrySet())
+						((EvaluatorDiscrete) e.getValue()).setEvaluation(position.getKey(), counts[position.getValue()]);
+				} catch (Exception ex) {
+					ex.printStackTrace();
+				}
+			}
+		}
+		opponentUtilitySpace = space;
+		spaceVersion = version;
+		return space;
+	}
+
+	@Override
+	public String getName() {
+		return "HardHeaded Frequency Model (arrays)";
+	}
+
+	@Override
+	public Set<BOAparameter> getParameterSpec() {
+		Set<BOAparameter> set = new HashSet<BOAparameter>();
+		set.add(new BOAparameter("l", 0.2,
+				"The learning coefficient determines how quickly the issue weights are learned"));
+		return set;
+	}
+}
@@ -0,0 +1,26 @@
+package boaexamplepackage;
+
+import java.util.List;
+
+import negotiator.bidding.BidDetails;
+
+/**
+ * An opponent model which can score a whole list of candidate bids in one go.
+ * OM strategies such as {@link BestBid} use this instead of calling
+ * getBidEvaluation for every bid when the model supports it.
+ */
+public interface BatchEvaluation {
+
+	/**
+	 * @return a number which changes every time the model learns something,
+	 *         scores computed at the same version are still valid.
+	 */
+	long getVersion();
+
+	/**
+	 * @param bids
+	 *            candidate bids.
+	 * @return the estimated opponent utility of every bid, in the same order.
+	 */
+	double[] getBidEvaluations(List<BidDetails> bids);
+}
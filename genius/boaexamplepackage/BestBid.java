@@ -71,9 +71,15 @@ public class BestBid extends OMStrategy {
 		// to ensure that the opponent model works. If the opponent model
 		// does not work, offer a random bid.
 		boolean allWereZero = true;
-		// 3. Determine the best bid
-		for (BidDetails bid : allBids) {
-			double evaluation = model.getBidEvaluation(bid.getBid());
+		// 3. Determine the best bid, scoring all bids at once if the model
+		// supports it
+		double[] evaluations = null;
+		if (model instanceof BatchEvaluation) {
+			evaluations = ((BatchEvaluation) model).getBidEvaluations(allBids);
+		}
+		for (int i = 0; i < allBids.size(); i++) {
+			BidDetails bid = allBids.get(i);
+			double evaluation = evaluations != null ? evaluations[i] : model.getBidEvaluation(bid.getBid());
 			if (evaluation > 0.0001) {
 				allWereZero = false;
 			}
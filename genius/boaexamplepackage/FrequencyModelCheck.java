@@ -0,0 +1,131 @@
+package boaexamplepackage;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import negotiator.Bid;
+import negotiator.BidHistory;
+import negotiator.Domain;
+import negotiator.DomainImpl;
+import negotiator.bidding.BidDetails;
+import negotiator.boaframework.NegotiationSession;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Value;
+import negotiator.utility.AdditiveUtilitySpace;
+
+/**
+ * Checks that {@link ArrayFrequencyModel} learns the same model as
+ * {@link HardHeadedFrequencyModel}, and how much faster it does.
+ *
+ * Both models are fed the same opponent that changes a few issues at a time,
+ * then compared on the evaluation of random bids and on every issue weight.
+ * Run from the Genius directory with the domain file as argument, e.g.
+ *
+ * java -cp negosimulator.jar:. boaexamplepackage.FrequencyModelCheck
+ * etc/templates/partydomain/party_domain.xml
+ *
+ * Exits with 1 if the models differ by more than {@link #TOLERANCE}.
+ */
+public class FrequencyModelCheck {
+
+	/** Largest difference put down to rounding */
+	private static final double TOLERANCE = 1e-9;
+
+	public static void main(String[] args) throws Exception {
+		Domain domain = new DomainImpl(args.length > 0 ? args[0] : "etc/templates/partydomain/party_domain.xml");
+		int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+		double worst = 0;
+		int updates = 0;
+		for (int seed = 0; seed < sessions; seed++) {
+			Random random = new Random(seed);
+			Session original = new Session(domain), arrays = new Session(domain);
+			HardHeadedFrequencyModel expected = new HardHeadedFrequencyModel();
+			expected.init(original, null);
+			ArrayFrequencyModel actual = new ArrayFrequencyModel();
+			actual.init(arrays, null);
+
+			HashMap<Integer, Value> values = randomValues(domain, random);
+			int length = 50 + random.nextInt(500);
+			for (int t = 0; t < length; t++) {
+				// a stubborn opponent, about a third of the issues change
+				for (Issue issue : domain.getIssues()) {
+					if (random.nextDouble() < 0.3)
+						values.put(issue.getNumber(), randomValue((IssueDiscrete) issue, random));
+				}
+				Bid bid = new Bid(domain, new HashMap<Integer, Value>(values));
+				double time = t / (double) length;
+				original.getOpponentBidHistory().add(new BidDetails(bid, 0, time));
+				arrays.getOpponentBidHistory().add(new BidDetails(bid, 0, time));
+				expected.updateModel(bid, time);
+				actual.updateModel(bid, time);
+				updates++;
+
+				for (int q = 0; q < 5; q++) {
+					Bid other = new Bid(domain, randomValues(domain, random));
+					worst = Math.max(worst, Math.abs(expected.getBidEvaluation(other) - actual.getBidEvaluation(other)));
+				}
+				AdditiveUtilitySpace space = (AdditiveUtilitySpace) expected.getOpponentUtilitySpace();
+				for (Issue issue : domain.getIssues())
+					worst = Math.max(worst, Math.abs(space.getWeight(issue.getNumber()) - actual.getWeight(issue)));
+			}
+		}
+		System.out.println(updates + " updates, largest difference " + worst);
+
+		timing(domain);
+		if (worst > TOLERANCE)
+			System.exit(1);
+	}
+
+	/**
+	 * Times both models learning the same long session.
+	 */
+	private static void timing(Domain domain) {
+		Random random = new Random(1);
+		Bid[] bids = new Bid[20000];
+		for (int k = 0; k < bids.length; k++)
+			bids[k] = new Bid(domain, randomValues(domain, random));
+
+		for (int rep = 0; rep < 3; rep++) {
+			long start = System.nanoTime();
+			Session original = new Session(domain);
+			HardHeadedFrequencyModel expected = new HardHeadedFrequencyModel();
+			expected.init(original, null);
+			for (Bid bid : bids) {
+				original.getOpponentBidHistory().add(new BidDetails(bid, 0));
+				expected.updateModel(bid, 0);
+			}
+			long middle = System.nanoTime();
+			ArrayFrequencyModel actual = new ArrayFrequencyModel();
+			actual.init(new Session(domain), null);
+			for (Bid bid : bids)
+				actual.updateModel(bid, 0);
+			long end = System.nanoTime();
+			System.out.println(String.format("original %.0f ns/update, arrays %.0f ns/update",
+					(middle - start) / (double) bids.length, (end - middle) / (double) bids.length));
+		}
+	}
+
+	private static HashMap<Integer, Value> randomValues(Domain domain, Random random) {
+		HashMap<Integer, Value> values = new HashMap<Integer, Value>();
+		for (Issue issue : domain.getIssues())
+			values.put(issue.getNumber(), randomValue((IssueDiscrete) issue, random));
+		return values;
+	}
+
+	private static Value randomValue(IssueDiscrete issue, Random random) {
+		return issue.getValue(random.nextInt(issue.getNumberOfValues()));
+	}
+
+	/**
+	 * Just the domain and the opponent's bids, all either model looks at.
+	 */
+	private static class Session extends NegotiationSession {
+		Session(Domain domain) {
+			this.domain = domain;
+			this.opponentBidHistory = new BidHistory();
+			this.ownBidHistory = new BidHistory();
+		}
+	}
+}
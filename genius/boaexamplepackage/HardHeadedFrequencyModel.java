@@ -1,7 +1,10 @@
 package boaexamplepackage;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -14,6 +17,7 @@ import negotiator.boaframework.OpponentModel;
 import negotiator.issue.Issue;
 import negotiator.issue.IssueDiscrete;
 import negotiator.issue.Objective;
+import negotiator.issue.Value;
 import negotiator.issue.ValueDiscrete;
 import negotiator.utility.AdditiveUtilitySpace;
 import negotiator.utility.Evaluator;
@@ -34,8 +38,14 @@ import negotiator.utility.EvaluatorDiscrete;
  * Jonker. Decoupling Negotiating Agents to Explore the Space of Negotiation
  * Strategies
  * 
+ * Bids are scored against a flat table holding the weighted, normalized
+ * evaluation of every value, which is only rebuilt after the model changed.
+ * Batches of candidates are also cached per model version.
  */
-public class HardHeadedFrequencyModel extends OpponentModel {
+public class HardHeadedFrequencyModel extends OpponentModel implements BatchEvaluation {
+
+	/** Most cached scores before the cache starts over */
+	private static final int CACHE_SIZE = 1 << 16;
 
 	// the learning coefficient is the weight that is added each turn to the
 	// issue weights
@@ -46,6 +56,18 @@ public class HardHeadedFrequencyModel extends OpponentModel {
 	private int learnValueAddition;
 	private int amountOfIssues;
 
+	/** Increased on every update of the model */
+	private long version;
+	private IssueDiscrete[] issues;
+	/** Position of every value of an issue in the score table */
+	private List<Map<Value, Integer>> positions;
+	/** Weighted, normalized evaluation of every value of every issue */
+	private double[] scores;
+	private long scoresVersion = -1;
+	/** Scores of candidates handed in before at the current version */
+	private final IdentityHashMap<BidDetails, Double> cache = new IdentityHashMap<BidDetails, Double>();
+	private long cacheVersion = -1;
+
 	/**
 	 * Initializes the utility space of the opponent such that all value issue
 	 * weights are equal.
@@ -82,6 +104,20 @@ public class HardHeadedFrequencyModel extends OpponentModel {
 				ex.printStackTrace();
 			}
 		}
+
+		// lay out all values of all issues one after the other
+		List<Issue> domainIssues = opponentUtilitySpace.getDomain().getIssues();
+		issues = new IssueDiscrete[domainIssues.size()];
+		positions = new ArrayList<Map<Value, Integer>>(issues.length);
+		int size = 0;
+		for (int i = 0; i < issues.length; i++) {
+			issues[i] = (IssueDiscrete) domainIssues.get(i);
+			Map<Value, Integer> position = new HashMap<Value, Integer>();
+			for (ValueDiscrete vd : issues[i].getValues())
+				position.put(vd, size++);
+			positions.add(position);
+		}
+		scores = new double[size];
 	}
 
 	/**
@@ -118,6 +154,7 @@ public class HardHeadedFrequencyModel extends OpponentModel {
 		if (negotiationSession.getOpponentBidHistory().size() < 2) {
 			return;
 		}
+		version++;
 		int numberOfUnchanged = 0;
 		BidDetails oppBid = negotiationSession.getOpponentBidHistory().getHistory()
 				.get(negotiationSession.getOpponentBidHistory().size() - 1);
@@ -171,11 +208,75 @@ public class HardHeadedFrequencyModel extends OpponentModel {
 
 	@Override
 	public double getBidEvaluation(Bid bid) {
+		return score(bid, scoreTable());
+	}
+
+	@Override
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Scores all bids against the score table, bids which were scored before
+	 * at this version of the model are taken from the cache.
+	 */
+	@Override
+	public double[] getBidEvaluations(List<BidDetails> bids) {
+		if (cacheVersion != version || cache.size() > CACHE_SIZE) {
+			cache.clear();
+			cacheVersion = version;
+		}
+		double[] table = scoreTable();
+		double[] result = new double[bids.size()];
+		for (int b = 0; b < result.length; b++) {
+			BidDetails bid = bids.get(b);
+			Double score = cache.get(bid);
+			if (score == null) {
+				score = score(bid.getBid(), table);
+				cache.put(bid, score);
+			}
+			result[b] = score;
+		}
+		return result;
+	}
+
+	/**
+	 * Rebuilds the score table if the model changed since it was last built.
+	 */
+	private double[] scoreTable() {
+		if (scoresVersion != version) {
+			try {
+				for (int i = 0; i < issues.length; i++) {
+					EvaluatorDiscrete evaluator = (EvaluatorDiscrete) opponentUtilitySpace.getEvaluator(issues[i].getNumber());
+					double weight = opponentUtilitySpace.getWeight(issues[i].getNumber());
+					for (Entry<Value, Integer> position : positions.get(i).entrySet())
+						scores[position.getValue()] = weight * evaluator.getEvaluation((ValueDiscrete) position.getKey());
+				}
+				scoresVersion = version;
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * Sums the table entries of the values in the bid, falls back to the
+	 * utility space for values the table does not know.
+	 */
+	private double score(Bid bid, double[] table) {
 		double result = 0;
-		try {
-			result = opponentUtilitySpace.getUtility(bid);
-		} catch (Exception e) {
-			e.printStackTrace();
+		for (int i = 0; i < issues.length; i++) {
+			Integer position = positions.get(i).get(bid.getValue(issues[i].getNumber()));
+			if (position == null || scoresVersion != version) {
+				try {
+					return opponentUtilitySpace.getUtility(bid);
+				} catch (Exception e) {
+					e.printStackTrace();
+					return 0;
+				}
+			}
+			result += table[position];
 		}
 		return result;
 	}
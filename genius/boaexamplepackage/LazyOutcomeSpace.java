@@ -0,0 +1,314 @@
+package boaexamplepackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import misc.Range;
+import negotiator.Bid;
+import negotiator.Domain;
+import negotiator.bidding.BidDetails;
+import negotiator.boaframework.OutcomeSpace;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import negotiator.utility.AbstractUtilitySpace;
+import negotiator.utility.AdditiveUtilitySpace;
+import negotiator.utility.EvaluatorDiscrete;
+
+/**
+ * An outcome space for additive profiles over discrete issues which never
+ * builds the full list of outcomes, unlike {@link negotiator.boaframework.SortedOutcomeSpace}.
+ * 
+ * Every issue keeps its values sorted by what they add to our utility, so a bid
+ * is a vector of ranks. Bids are enumerated in descending utility with a
+ * priority queue over these rank vectors (each vector is reached from exactly
+ * one parent by stepping down a single issue), and "bids near utility u" is
+ * answered by a depth first search which skips every partial bid whose
+ * remaining issues cannot reach u. Memory is proportional to the part of the
+ * space that is actually explored.
+ */
+public class LazyOutcomeSpace extends OutcomeSpace {
+
+	/** Most partial bids visited by a single search before it settles */
+	public static final int SEARCH_BUDGET = 1 << 20;
+
+	private final Domain domain;
+	private final IssueDiscrete[] issues;
+	/** Values of every issue, best first */
+	private final ValueDiscrete[][] values;
+	/** Weighted evaluation of every value, in the same order */
+	private final double[][] utilities;
+	/** Most and least the issues from i onwards can still add */
+	private final double[] maxRest, minRest;
+	/** Most bids returned by {@link #getBidsinRange(Range)} */
+	private final int limit;
+	/** Only filled in when someone asks for all outcomes */
+	private List<BidDetails> all;
+
+	/**
+	 * @param utilSpace
+	 *            an additive utility space with discrete issues only.
+	 * @throws IllegalArgumentException
+	 *             if the space is not additive or has a non discrete issue.
+	 */
+	public LazyOutcomeSpace(AbstractUtilitySpace utilSpace) throws Exception {
+		this(utilSpace, 10000);
+	}
+
+	/**
+	 * @param utilSpace
+	 *            an additive utility space with discrete issues only.
+	 * @param limit
+	 *            most bids returned by a range query.
+	 */
+	public LazyOutcomeSpace(AbstractUtilitySpace utilSpace, int limit) throws Exception {
+		if (!(utilSpace instanceof AdditiveUtilitySpace))
+			throw new IllegalArgumentException("Lazy outcome space needs an additive utility space");
+		AdditiveUtilitySpace additive = (AdditiveUtilitySpace) utilSpace;
+		this.utilitySpace = utilSpace;
+		this.domain = utilSpace.getDomain();
+		this.limit = limit;
+
+		List<Issue> domainIssues = domain.getIssues();
+		int n = domainIssues.size();
+		issues = new IssueDiscrete[n];
+		values = new ValueDiscrete[n][];
+		utilities = new double[n][];
+		for (int i = 0; i < n; i++) {
+			if (!(domainIssues.get(i) instanceof IssueDiscrete))
+				throw new IllegalArgumentException("Lazy outcome space only supports discrete issues");
+			issues[i] = (IssueDiscrete) domainIssues.get(i);
+			EvaluatorDiscrete evaluator = (EvaluatorDiscrete) additive.getEvaluator(issues[i].getNumber());
+			double weight = additive.getWeight(issues[i].getNumber());
+
+			// Sort the values of this issue best first
+			List<ValueDiscrete> issueValues = new ArrayList<ValueDiscrete>(issues[i].getValues());
+			final HashMap<ValueDiscrete, Double> utility = new HashMap<ValueDiscrete, Double>();
+			for (ValueDiscrete value : issueValues)
+				utility.put(value, weight * evaluator.getEvaluation(value));
+			Collections.sort(issueValues, (a, b) -> Double.compare(utility.get(b), utility.get(a)));
+
+			values[i] = issueValues.toArray(new ValueDiscrete[issueValues.size()]);
+			utilities[i] = new double[values[i].length];
+			for (int k = 0; k < values[i].length; k++)
+				utilities[i][k] = utility.get(values[i][k]);
+		}
+
+		maxRest = new double[n + 1];
+		minRest = new double[n + 1];
+		for (int i = n - 1; i >= 0; i--) {
+			maxRest[i] = maxRest[i + 1] + utilities[i][0];
+			minRest[i] = minRest[i + 1] + utilities[i][utilities[i].length - 1];
+		}
+	}
+
+	/**
+	 * @return iterator over all bids from the best to the worst, which only
+	 *         does the work for the bids it hands out.
+	 */
+	public Iterator<BidDetails> descending() {
+		return new Iterator<BidDetails>() {
+			private final PriorityQueue<Node> frontier = new PriorityQueue<Node>();
+
+			{
+				frontier.add(new Node(new int[issues.length], 0, maxRest[0]));
+			}
+
+			@Override
+			public boolean hasNext() {
+				return !frontier.isEmpty();
+			}
+
+			@Override
+			public BidDetails next() {
+				Node node = frontier.poll();
+				if (node == null)
+					throw new NoSuchElementException();
+
+				// Step down one issue at a time, only from the last issue
+				// stepped onwards so no vector is queued twice
+				for (int i = node.last; i < issues.length; i++) {
+					int rank = node.ranks[i];
+					if (rank + 1 < values[i].length) {
+						int[] ranks = node.ranks.clone();
+						ranks[i]++;
+						frontier.add(new Node(ranks, i, node.utility - utilities[i][rank] + utilities[i][rank + 1]));
+					}
+				}
+				return details(node.ranks, node.utility);
+			}
+		};
+	}
+
+	/**
+	 * @param k
+	 *            number of bids.
+	 * @return the k best bids for us, best first.
+	 */
+	public List<BidDetails> getBest(int k) {
+		List<BidDetails> best = new ArrayList<BidDetails>(k);
+		Iterator<BidDetails> iterator = descending();
+		while (best.size() < k && iterator.hasNext())
+			best.add(iterator.next());
+		return best;
+	}
+
+	/**
+	 * Bids between the bounds of the range, best first, at most the limit
+	 * given in the constructor.
+	 */
+	@Override
+	public List<BidDetails> getBidsinRange(Range range) {
+		List<BidDetails> bids = new ArrayList<BidDetails>();
+		collect(0, new int[issues.length], 0, range.getLowerbound(), range.getUpperbound(), bids, new int[] { SEARCH_BUDGET });
+		Collections.sort(bids, (a, b) -> Double.compare(b.getMyUndiscountedUtil(), a.getMyUndiscountedUtil()));
+		return bids;
+	}
+
+	private void collect(int issue, int[] ranks, double utility, double lower, double upper, List<BidDetails> bids, int[] budget) {
+		if (issue == issues.length) {
+			bids.add(details(ranks, utility));
+			return;
+		}
+		for (int k = 0; k < values[issue].length && bids.size() < limit && budget[0]-- > 0; k++) {
+			double partial = utility + utilities[issue][k];
+			// Values are best first, so once the rest can't reach the lower
+			// bound no later value can either
+			if (partial + maxRest[issue + 1] < lower)
+				break;
+			if (partial + minRest[issue + 1] > upper)
+				continue;
+			ranks[issue] = k;
+			collect(issue + 1, ranks, partial, lower, upper, bids, budget);
+		}
+	}
+
+	/**
+	 * The bid with the utility closest to the given one, found by a depth
+	 * first search which skips partial bids that cannot get closer than the
+	 * best found so far.
+	 */
+	@Override
+	public BidDetails getBidNearUtility(double utility) {
+		Nearest nearest = new Nearest(utility);
+		nearest.search(0, new int[issues.length], 0);
+		return details(nearest.best, nearest.bestUtility);
+	}
+
+	/**
+	 * Only here for strategies that need every outcome, this builds the whole
+	 * sorted list once.
+	 */
+	@Override
+	public List<BidDetails> getAllOutcomes() {
+		if (all == null) {
+			List<BidDetails> outcomes = new ArrayList<BidDetails>();
+			Iterator<BidDetails> iterator = descending();
+			while (iterator.hasNext())
+				outcomes.add(iterator.next());
+			all = outcomes;
+		}
+		return all;
+	}
+
+	@Override
+	public int getIndexOfBidNearUtility(double utility) {
+		List<BidDetails> outcomes = getAllOutcomes();
+		int index = 0;
+		double distance = Double.MAX_VALUE;
+		for (int i = 0; i < outcomes.size(); i++) {
+			double d = Math.abs(outcomes.get(i).getMyUndiscountedUtil() - utility);
+			if (d < distance) {
+				distance = d;
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	@Override
+	public BidDetails getMaxBidPossible() {
+		return details(new int[issues.length], maxRest[0]);
+	}
+
+	@Override
+	public BidDetails getMinBidPossible() {
+		int[] ranks = new int[issues.length];
+		for (int i = 0; i < issues.length; i++)
+			ranks[i] = values[i].length - 1;
+		return details(ranks, minRest[0]);
+	}
+
+	private BidDetails details(int[] ranks, double utility) {
+		HashMap<Integer, Value> bid = new HashMap<Integer, Value>();
+		for (int i = 0; i < issues.length; i++)
+			bid.put(issues[i].getNumber(), values[i][ranks[i]]);
+		return new BidDetails(new Bid(domain, bid), utility);
+	}
+
+	/**
+	 * A bid as the rank of its value on every issue, ordered best first
+	 */
+	private static final class Node implements Comparable<Node> {
+		final int[] ranks;
+		/** Last issue stepped down to reach this node */
+		final int last;
+		final double utility;
+
+		Node(int[] ranks, int last, double utility) {
+			this.ranks = ranks;
+			this.last = last;
+			this.utility = utility;
+		}
+
+		@Override
+		public int compareTo(Node other) {
+			return Double.compare(other.utility, utility);
+		}
+	}
+
+	/**
+	 * Branch and bound search for the bid closest to a target utility
+	 */
+	private final class Nearest {
+		final double target;
+		final int[] best = new int[issues.length];
+		double bestUtility = maxRest[0];
+		double distance;
+		int budget = SEARCH_BUDGET;
+
+		Nearest(double target) {
+			this.target = target;
+			this.distance = Math.abs(bestUtility - target);
+		}
+
+		void search(int issue, int[] ranks, double utility) {
+			if (issue == issues.length) {
+				double d = Math.abs(utility - target);
+				if (d < distance) {
+					distance = d;
+					bestUtility = utility;
+					System.arraycopy(ranks, 0, best, 0, ranks.length);
+				}
+				return;
+			}
+			for (int k = 0; k < values[issue].length && distance > 1e-9 && budget-- > 0; k++) {
+				double partial = utility + utilities[issue][k];
+				double high = partial + maxRest[issue + 1], low = partial + minRest[issue + 1];
+				// Too low already and only getting lower with the later values
+				if (target - high >= distance)
+					break;
+				if (low - target >= distance)
+					continue;
+				ranks[issue] = k;
+				search(issue + 1, ranks, partial);
+			}
+		}
+	}
+}
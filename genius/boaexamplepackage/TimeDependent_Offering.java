@@ -4,6 +4,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import misc.Range;
 import negotiator.bidding.BidDetails;
 import negotiator.boaframework.BOAparameter;
 import negotiator.boaframework.NegotiationSession;
@@ -39,6 +40,8 @@ public class TimeDependent_Offering extends OfferingStrategy {
 	private double e;
 	/** Outcome space */
 	private SortedOutcomeSpace outcomespace;
+	/** Outcome space used instead when the lazy parameter is set */
+	private LazyOutcomeSpace lazyspace;
 
 	/**
 	 * Method which initializes the agent by setting all parameters. The
@@ -51,8 +54,18 @@ public class TimeDependent_Offering extends OfferingStrategy {
 		if (parameters.get("e") != null) {
 			this.negotiationSession = negoSession;
 
-			outcomespace = new SortedOutcomeSpace(negotiationSession.getUtilitySpace());
-			negotiationSession.setOutcomeSpace(outcomespace);
+			if (parameters.get("lazy") != null && parameters.get("lazy") > 0) {
+				try {
+					lazyspace = new LazyOutcomeSpace(negotiationSession.getUtilitySpace());
+					negotiationSession.setOutcomeSpace(lazyspace);
+				} catch (IllegalArgumentException unsupported) {
+					System.out.println("Falling back to a sorted outcome space: " + unsupported.getMessage());
+				}
+			}
+			if (lazyspace == null) {
+				outcomespace = new SortedOutcomeSpace(negotiationSession.getUtilitySpace());
+				negotiationSession.setOutcomeSpace(outcomespace);
+			}
 
 			this.e = parameters.get("e");
 
@@ -104,6 +117,9 @@ public class TimeDependent_Offering extends OfferingStrategy {
 		// if there is no opponent model available
 		if (opponentModel instanceof NoModel) {
 			nextBid = negotiationSession.getOutcomeSpace().getBidNearUtility(utilityGoal);
+		} else if (lazyspace != null) {
+			// Same window as the sorted outcome space gets from the OM strategy
+			nextBid = omStrategy.getBid(lazyspace, new Range(utilityGoal, utilityGoal + 0.01));
 		} else {
 			nextBid = omStrategy.getBid(outcomespace, utilityGoal);
 		}
@@ -152,6 +168,7 @@ public class TimeDependent_Offering extends OfferingStrategy {
 		set.add(new BOAparameter("k", 0.0, "Offset"));
 		set.add(new BOAparameter("min", 0.0, "Minimum utility"));
 		set.add(new BOAparameter("max", 0.99, "Maximum utility"));
+		set.add(new BOAparameter("lazy", 0.0, "Enumerate outcomes lazily instead of sorting them all (1 = on)"));
 
 		return set;
 	}
@@ -1,3 +1,4 @@
+import group23.BidSampler;
 import misc.Pair;
 import negotiator.AgentID;
 import negotiator.Bid;
@@ -18,6 +19,7 @@ public class Conceder extends AbstractNegotiationParty {
     private double stubbornness = 10_000;
     private int round = 0;
     private Bid maxbid;
+    private BidSampler sampler;
 
     private List<Pair<AgentID, Offer>> history = new ArrayList<>();
     private Map<AgentID, Offer> agents = new HashMap<>();
@@ -113,6 +115,13 @@ public class Conceder extends AbstractNegotiationParty {
     }
 
     public Bid generateRandomBidWithUtility(double utilityThreshold) {
+        // Draw straight from the bids that are good enough where we can, trying random bids can spin forever near the max
+        if (sampler == null) sampler = BidSampler.create(utilitySpace);
+        if (sampler != null) {
+            Bid bid = sampler.sample(utilityThreshold, rand);
+            return bid != null ? bid : sampler.getMaxBid();
+        }
+
         Bid randomBid;
         double utility;
         do {
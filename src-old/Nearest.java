@@ -1,3 +1,4 @@
+import group23.BidIndex;
 import misc.Pair;
 import negotiator.AgentID;
 import negotiator.Bid;
@@ -7,10 +8,12 @@ import negotiator.actions.Offer;
 import negotiator.issue.*;
 import negotiator.parties.AbstractNegotiationParty;
 import negotiator.parties.NegotiationInfo;
+import negotiator.utility.AbstractUtilitySpace;
 import negotiator.utility.AdditiveUtilitySpace;
 import negotiator.utility.UtilitySpace;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class Nearest extends AbstractNegotiationParty {
 	private String description = "Nearest";
@@ -21,6 +24,8 @@ public class Nearest extends AbstractNegotiationParty {
 
 	private Deque<Pair<AgentID, Offer>> history = new LimitedQueue<>(250);
 	private Map<AgentID, Offer> agents = new HashMap<>();
+	private SplittableRandom random = Randomness.create(0);
+	private volatile BidIndex index;
 
 	/**
 	 * Lerp between two values a and b using t
@@ -78,6 +83,12 @@ public class Nearest extends AbstractNegotiationParty {
 	@Override
 	public void init(NegotiationInfo info) {
 		super.init(info);
+		random = Randomness.create(info.getRandomSeed());
+
+		// Null when the domain is too big or not discrete, then we fall back to conceding issue by issue. Indexing can
+		// take a while on big domains, we concede issue by issue until it's ready too
+		AbstractUtilitySpace space = info.getUtilitySpace();
+		CompletableFuture.runAsync(() -> index = BidIndex.shared(space));
 	}
 
 	/**
@@ -141,7 +152,7 @@ public class Nearest extends AbstractNegotiationParty {
 
 				// Some randomness to spice things up, weighted of course
 				// TODO actually test this code!
-				if(discreteConcessions > 0 && Math.random() > 0.5 * weights.get(id)) {
+				if(discreteConcessions > 0 && random.nextDouble() > 0.5 * weights.get(id)) {
 					proposal.put(id, last.getValue(id));
 					discreteConcessions -= 1;
 				}
@@ -196,6 +207,13 @@ public class Nearest extends AbstractNegotiationParty {
 			}
 		}
 
+		// Better still, the closest bid to theirs that we'd be happy with
+		BidIndex index = this.index;
+		if (index != null) {
+			List<Bid> nearest = index.nearest(last, 1, willingness);
+			if (!nearest.isEmpty()) proposal = nearest.get(0).getValues();
+		}
+
 		// Is the offer good enough?
 		Bid bid = new Bid(this.getUtilitySpace().getDomain(), new HashMap<>(proposal));
 		if (this.getUtilitySpace().getUtility(last) >= this.getUtilitySpace().getUtility(bid)) {
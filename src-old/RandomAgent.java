@@ -7,7 +7,7 @@ import negotiator.parties.AbstractNegotiationParty;
 import negotiator.parties.NegotiationInfo;
 
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * ExampleAgent returns the bid that maximizes its own utility for half of the negotiation session.
@@ -20,12 +20,13 @@ public class RandomAgent extends AbstractNegotiationParty {
     private Bid lastReceivedOffer; // offer on the table
     private Bid myLastOffer;
     protected  double randomTime;
-    protected  Random random = new Random();
+    protected  SplittableRandom random = Randomness.create(0);
 
     @Override
     public void init(NegotiationInfo info) {
         super.init(info);
 
+        random = Randomness.create(info.getRandomSeed());
         randomTime = 0.75 + 0.2 * random.nextDouble();
     }
 
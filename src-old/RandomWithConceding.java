@@ -1,3 +1,4 @@
+import group23.BidSampler;
 import negotiator.AgentID;
 import negotiator.Bid;
 import negotiator.actions.Accept;
@@ -18,6 +19,7 @@ public class RandomWithConceding extends AbstractNegotiationParty {
 
     private Bid lastReceivedOffer; // offer on the table
     private Bid myLastOffer;
+    private BidSampler sampler;
 
     private double stubbornness = 10_000;
 
@@ -93,6 +95,13 @@ public class RandomWithConceding extends AbstractNegotiationParty {
     }
 
     public Bid generateRandomBidWithUtility(double utilityThreshold) {
+        // Draw straight from the bids that are good enough where we can, trying random bids can spin forever near the max
+        if (sampler == null) sampler = BidSampler.create(utilitySpace);
+        if (sampler != null) {
+            Bid bid = sampler.sample(utilityThreshold, rand);
+            return bid != null ? bid : sampler.getMaxBid();
+        }
+
         Bid randomBid;
         double utility;
         do {
@@ -0,0 +1,43 @@
+import java.util.SplittableRandom;
+
+/**
+ * Per-agent random numbers, so parallel sessions don't all fight over the single Random behind Math.random().
+ *
+ * Run with -Dgroup23.random=deterministic to seed every agent from its session (reproducible benchmarks),
+ * the default is fast mode where every agent gets its own unseeded generator.
+ */
+public final class Randomness {
+	public static final String PROPERTY = "group23.random";
+
+	public enum Mode {
+		/**
+		 * Seed from the session, the same session will always play out the same way
+		 */
+		DETERMINISTIC,
+		/**
+		 * Independent unseeded generator per agent
+		 */
+		FAST
+	}
+
+	private Randomness() {
+	}
+
+	/**
+	 * Which mode are we running in?
+	 */
+	public static Mode mode() {
+		return "deterministic".equalsIgnoreCase(System.getProperty(PROPERTY)) ? Mode.DETERMINISTIC : Mode.FAST;
+	}
+
+	/**
+	 * Create a random source for an agent, using the session seed when we are deterministic
+	 */
+	public static SplittableRandom create(long seed) {
+		return create(mode(), seed);
+	}
+
+	public static SplittableRandom create(Mode mode, long seed) {
+		return mode == Mode.DETERMINISTIC ? new SplittableRandom(seed) : new SplittableRandom();
+	}
+}
@@ -10,8 +10,13 @@ import java.util.*;
 
 @SuppressWarnings({"SameParameterValue", "WeakerAccess", "unused"})
 public class Roulette extends AbstractNegotiationParty {
-	protected static int created = 0;
+	private static final String[] NAMES = {"Alpha", "Bravo", "Charlie", "Delta", "Echo", "Foxtrot", "Golf", "Hotel", "India", "Juliet", "Kilo", "Lima", "Mike", "November", "Oscar", "Papa", "Quebec", "Romeo", "Sierra", "Tango", "Uniform", "Victor", "Whiskey", "X-ray", "Yankee", "Zulu"};
+	private static final String[] DESCRIPTORS = {"Submissive", "Soft", "Kind", "Reasonable", "Determined", "Firm", "Tough", "Angry", "Mad"};
 
+	/**
+	 * Who we are, used for naming. Taken from our party id once we have one so nothing is shared between instances
+	 */
+	protected int identity = System.identityHashCode(this);
 	/**
 	 * Round tracker
 	 */
@@ -26,7 +31,11 @@ public class Roulette extends AbstractNegotiationParty {
 	 * Make the agent random
 	 */
 	protected int randomFrequency = 50;
-	protected int randomSpike = (int) Math.round(Math.random() * randomFrequency);
+	protected int randomSpike;
+	/**
+	 * Our own random source, seeded from the session in init
+	 */
+	protected SplittableRandom random = Randomness.create(0);
 	/**
 	 * How we want to bias our wheel. 1 = our most important issue never gets changed, > 1 = our most important issue gets changed using the bias
 	 */
@@ -137,21 +146,21 @@ public class Roulette extends AbstractNegotiationParty {
 		double randomAmount = 0;
 		--randomSpike;
 		if (randomSpike <= 0) {
-			randomAmount = Math.random() * 0.25;
-			randomSpike = (int) Math.round(Math.random() * randomFrequency);
+			randomAmount = random.nextDouble() * 0.25;
+			randomSpike = (int) Math.round(random.nextDouble() * randomFrequency);
 		}
 
-		return Math.max(minimumUtility, clamp01(-(Math.pow(stubbornness, clamp01(t)) / stubbornness) + 0.90 + Math.random() * 0.1 + randomAmount));
-	}
-
-	public Roulette() {
-		// Count number of instances
-		++Roulette.created;
+		return Math.max(minimumUtility, clamp01(-(Math.pow(stubbornness, clamp01(t)) / stubbornness) + 0.90 + random.nextDouble() * 0.1 + randomAmount));
 	}
 
 	@Override
 	public void init(NegotiationInfo info) {
 		super.init(info);
+		identity = getPartyId().hashCode();
+
+		// Seed our random source from the session
+		random = Randomness.create(info.getRandomSeed());
+		randomSpike = (int) Math.round(random.nextDouble() * randomFrequency);
 		log("Initialised");
 	}
 
@@ -353,7 +362,7 @@ public class Roulette extends AbstractNegotiationParty {
 					(c < 10 * maxBid.getIssues().size() && !within(this.getUtility(new Bid(this.getUtilitySpace().getDomain(), proposal)), willingness - 0.1, willingness + 0.1)) ||
 					(c < 20 * maxBid.getIssues().size() && this.getUtility(new Bid(this.getUtilitySpace().getDomain(), proposal)) <= willingness - 0.1);
 				c++) {
-					double outerValue = Math.random() * rouletteWheel.getTotal();
+					double outerValue = random.nextDouble() * rouletteWheel.getTotal();
 
 					for (int i = 0; i < rouletteWheel.getInnerWheels().size(); i++) {
 						// Max, total, sublist
@@ -362,7 +371,7 @@ public class Roulette extends AbstractNegotiationParty {
 
 						if (outerValue <= 0) {
 							// We have found our issue
-							double innerValue = Math.random() * issue.getTotal();
+							double innerValue = random.nextDouble() * issue.getTotal();
 
 							for (int j = 0; j < issue.getValuesList().size(); j++) {
 								// Value, string
@@ -450,9 +459,7 @@ public class Roulette extends AbstractNegotiationParty {
 	 */
 	@Override
 	public String getDescription() {
-		String[] names = {"Alpha", "Bravo", "Charlie", "Delta", "Echo", "Foxtrot", "Golf", "Hotel", "India", "Juliet", "Kilo", "Lima", "Mike", "November", "Oscar", "Papa", "Quebec", "Romeo", "Sierra", "Tango", "Uniform", "Victor", "Whiskey", "X-ray", "Yankee", "Zulu"};
-		String[] descriptors = new String[]{"Submissive", "Soft", "Kind", "Reasonable", "Determined", "Firm", "Tough", "Angry", "Mad"};
-		return descriptors[(int) Math.round(clamp(Math.log10(stubbornness) + 1, 0, descriptors.length))] + " " + names[(Roulette.created - 1) % names.length] + " " + getClass().getSimpleName();
+		return DESCRIPTORS[(int) Math.round(clamp(Math.log10(stubbornness) + 1, 0, DESCRIPTORS.length - 1))] + " " + NAMES[Math.floorMod(identity, NAMES.length)] + " " + getClass().getSimpleName();
 	}
 
 	private Bid getMaxUtilityBid() {
@@ -2,18 +2,85 @@ package group23;
 
 import negotiator.AgentID;
 import negotiator.Bid;
+import negotiator.Domain;
 import negotiator.actions.*;
 import negotiator.issue.*;
 import negotiator.parties.*;
 import negotiator.utility.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 @SuppressWarnings({"SameParameterValue", "WeakerAccess", "unused"})
 public class Agent23 extends AbstractNegotiationParty {
-	protected static int created = 0;
+	private static final String[] NAMES = {"Alpha", "Bravo", "Charlie", "Delta", "Echo", "Foxtrot", "Golf", "Hotel", "India", "Juliet", "Kilo", "Lima", "Mike", "November", "Oscar", "Papa", "Quebec", "Romeo", "Sierra", "Tango", "Uniform", "Victor", "Whiskey", "X-ray", "Yankee", "Zulu"};
+	private static final String[] DESCRIPTORS = {"Submissive", "Soft", "Kind", "Reasonable", "Determined", "Firm", "Tough", "Angry", "Mad"};
+	/**
+	 * Run with -Dgroup23.quiet=true to stop logging, printing is synchronised so it stalls parallel runs
+	 */
+	protected static final boolean QUIET = Boolean.getBoolean("group23.quiet");
+	/**
+	 * Run with -Dgroup23.tradeoff=true to offer the bid nearest the opponent's last one on domains we can index
+	 */
+	protected static final boolean TRADE_OFF = Boolean.getBoolean("group23.tradeoff");
+	protected static final int TRADE_OFF_CANDIDATES = 8;
+	/**
+	 * Run with -Dgroup23.genetic=true to breed offers with the genetic optimizer for -Dgroup23.genetic.ms a turn
+	 */
+	protected static final boolean GENETIC = Boolean.getBoolean("group23.genetic");
+	protected static final long GENETIC_NANOS = Long.getLong("group23.genetic.ms", 10) * 1_000_000;
+	protected static final int GENETIC_POPULATION = 64;
+	/**
+	 * Populations evolved side by side on their own threads, -Dgroup23.genetic.islands (2 by default), never more than
+	 * we have processors
+	 */
+	protected static final int GENETIC_ISLANDS = Integer.getInteger("group23.genetic.islands", 2);
+	/**
+	 * Run with -Dgroup23.search=true to pick moves by tree search for -Dgroup23.search.ms a turn, experimental
+	 */
+	protected static final boolean SEARCH = Boolean.getBoolean("group23.search");
+	protected static final long SEARCH_NANOS = Long.getLong("group23.search.ms", 20) * 1_000_000;
+	protected static final int SEARCH_CANDIDATES = 12;
+	protected static final int SEARCH_HORIZON = 40;
+	/**
+	 * Most threads one search may use, -Dgroup23.search.threads (2 by default), never more than we have processors
+	 */
+	protected static final int SEARCH_THREADS = Integer.getInteger("group23.search.threads", 2);
+	/**
+	 * How many offers the archive of past sessions counts as, however big it is
+	 */
+	protected static final int ARCHIVE_PRIOR = 20;
+	/**
+	 * Run with -Dgroup23.window=N to also accept, after WINDOW_TIME, an offer at least as good as the best of the
+	 * last N we received
+	 */
+	protected static final int WINDOW = Integer.getInteger("group23.window", 0);
+	protected static final double WINDOW_TIME = 0.95;
+	/**
+	 * Run with -Dgroup23.speculate=true to prepare our next offers in the background while the others deliberate.
+	 * Offers are prepared from the background updater's snapshots, so this turns -Dgroup23.background on as well.
+	 * Ignored with -Dgroup23.random=deterministic, whether a prepared offer is ready in time depends on thread timing.
+	 */
+	protected static final boolean SPECULATE = Boolean.getBoolean("group23.speculate");
+	protected static final int SPECULATE_OFFERS = 4;
+	/**
+	 * Run with -Dgroup23.crowd=N for sessions with many parties: only a sample of N of them goes into the frequency
+	 * table, and the integer and real rules read running statistics instead of every party's first offer
+	 */
+	protected static final int CROWD = Integer.getInteger("group23.crowd", 0);
 
+	/**
+	 * Who we are, used for naming. Taken from our party id once we have one so nothing is shared between instances
+	 */
+	protected int identity = System.identityHashCode(this);
 	/**
 	 * Round tracker
 	 */
@@ -29,7 +96,11 @@ public class Agent23 extends AbstractNegotiationParty {
 	 * Make the agent random
 	 */
 	protected int randomFrequency = 50;
-	protected int randomSpike = (int) Math.round(Math.random() * randomFrequency);
+	protected int randomSpike;
+	/**
+	 * Our own random source, seeded from the session in init
+	 */
+	protected SplittableRandom random = Randomness.create(0);
 	/**
 	 * How we want to bias our wheel. 1 = our most important issue never gets changed, > 1 = our most important issue gets changed using the bias
 	 */
@@ -55,6 +126,77 @@ public class Agent23 extends AbstractNegotiationParty {
 	 * Frequency of previous values bids
 	 */
 	protected final Map<Integer, Map<String, Integer>> frequencies = new HashMap<>();
+	/**
+	 * How often each other party has offered each value, without our prior or our own offers. Same layout as
+	 * frequencies.
+	 */
+	protected final Map<AgentID, Map<Integer, Map<String, Integer>>> opponents = new HashMap<>();
+	/**
+	 * Timings and counters, shared by every agent in the JVM
+	 */
+	protected AgentMetrics metrics = AgentMetrics.global();
+	/**
+	 * Don't log, for the throwaway agents that warm up the JIT
+	 */
+	protected boolean silent;
+	/**
+	 * Record offers to -Dgroup23.archive, off for the throwaway agents whose opponents aren't real
+	 */
+	protected boolean archiving = true;
+	/**
+	 * Runs our turns against a deadline when -Dgroup23.watchdog=true, null otherwise
+	 */
+	protected Watchdog watchdog;
+	/**
+	 * What we offer if a turn overruns, prepared on the worker after each turn
+	 */
+	protected volatile Bid fallback;
+	/**
+	 * The turn the watchdog worker is deciding, null without a watchdog. Only touched on the worker.
+	 */
+	private Turn current;
+	/**
+	 * Max bid, weights and evaluation tables for our profile, computed in init
+	 */
+	protected Preferences preferences;
+	/**
+	 * Outcomes indexed by similarity when trading off, null otherwise and until it has been built
+	 */
+	protected volatile BidIndex bidIndex;
+	/**
+	 * Offers from past sessions by opponent class, when run with -Dgroup23.archive=directory
+	 */
+	protected final Map<String, OfferArchive> archives = new HashMap<>();
+	/**
+	 * Every archive we opened, flushed when the session ends even if appending to it failed
+	 */
+	protected final List<OfferArchive> opened = new ArrayList<>();
+	/**
+	 * Archives still being read in the background, learnt from once they're done
+	 */
+	protected final Map<OfferArchive, CompletableFuture<long[][]>> learning = new HashMap<>();
+	/**
+	 * Our utility of the offers we received lately, when run with -Dgroup23.window
+	 */
+	protected final UtilityWindow received = WINDOW > 0 ? UtilityWindow.ofSize(WINDOW) : null;
+	/**
+	 * Owns agents and frequencies on a background thread when run with -Dgroup23.background=true, null otherwise
+	 */
+	protected ModelUpdater<Model> updater;
+	/**
+	 * Offers folded into the model so far, so a snapshot knows how fresh it is
+	 */
+	protected volatile int folds;
+	/**
+	 * Prepares next turn's offers when run with -Dgroup23.speculate=true, null otherwise
+	 */
+	protected ExecutorService speculator;
+	protected volatile Speculation speculation;
+	private Future<?> speculating;
+	/**
+	 * Stands in for agents when run with -Dgroup23.crowd, null otherwise
+	 */
+	protected Crowd crowd;
 
     //<editor-fold desc="Lerps">
     /**
@@ -102,6 +244,7 @@ public class Agent23 extends AbstractNegotiationParty {
 	 * Log formatted messages
 	 */
 	protected void log(Object... objects) {
+		if (QUIET || silent) return;
 		StringBuilder builder = new StringBuilder();
 		builder.append(new Timestamp(System.currentTimeMillis())).append(" ").append(getDescription()).append(": ");
 		for (Object object : objects) builder.append(object);
@@ -140,22 +283,141 @@ public class Agent23 extends AbstractNegotiationParty {
 		double randomAmount = 0;
 		--randomSpike;
 		if (randomSpike <= 0) {
-			randomAmount = Math.random() * 0.25;
-			randomSpike = (int) Math.round(Math.random() * randomFrequency);
+			randomAmount = random.nextDouble() * 0.25;
+			randomSpike = (int) Math.round(random.nextDouble() * randomFrequency);
 		}
 
-		return Math.max(minimumUtility, clamp01(-(Math.pow(stubbornness, clamp01(t)) / stubbornness) + 0.90 + Math.random() * 0.1 + randomAmount));
+		return Math.max(minimumUtility, clamp01(-(Math.pow(stubbornness, clamp01(t)) / stubbornness) + 0.90 + random.nextDouble() * 0.1 + randomAmount));
+	}
+
+	/**
+	 * The tuning knobs of the agent, by name
+	 */
+	public Map<String, Double> getParameters() {
+		Map<String, Double> parameters = new LinkedHashMap<>();
+		parameters.put("stubbornness", stubbornness);
+		parameters.put("minimumUtility", minimumUtility);
+		parameters.put("frequencyMultiplier", frequencyMultiplier);
+		parameters.put("randomFrequency", (double) randomFrequency);
+		parameters.put("issueBias", issueBias);
+		return parameters;
 	}
 
-	public Agent23() {
-		// Count number of instances
-		++Agent23.created;
+	/**
+	 * Set tuning knobs by name, must be called before init
+	 */
+	public void setParameters(Map<String, Double> parameters) {
+		parameters.forEach((String name, Double value) -> {
+			switch (name) {
+				case "stubbornness": stubbornness = value; break;
+				case "minimumUtility": minimumUtility = value; break;
+				case "frequencyMultiplier": frequencyMultiplier = value; break;
+				case "randomFrequency": randomFrequency = (int) Math.round(value); break;
+				case "issueBias": issueBias = Math.max(1, value); break; // Don't go below 1!
+				default: throw new IllegalArgumentException("Unknown parameter " + name);
+			}
+		});
 	}
 
 	@Override
 	public void init(NegotiationInfo info) {
+		long start = System.nanoTime();
 		super.init(info);
+		identity = getPartyId().hashCode();
+
+		// Seed our random source from the session
+		random = Randomness.create(info.getRandomSeed());
+		randomSpike = (int) Math.round(random.nextDouble() * randomFrequency);
+
+		// Do the heavy lifting now rather than in our first turn
+		try {
+			Trace.Phase event = Trace.phase();
+			preferences = Preferences.shared(this.getUtilitySpace());
+			setup(preferences);
+			if (TRADE_OFF) {
+				// Indexing can take a while on big domains, we use the wheel until it's ready
+				AbstractUtilitySpace space = this.getUtilitySpace();
+				CompletableFuture.runAsync(() -> bidIndex = BidIndex.shared(space));
+			}
+			event.finish(this, "setup", 0, 1);
+		} catch (Throwable throwable) {
+			warn("Failed to set up in init, trying again in chooseAction");
+			metrics.failure();
+			throwable.printStackTrace();
+		}
+
+		// Prepared offers would make the same session play out differently run to run
+		boolean speculate = SPECULATE && Randomness.mode() != Randomness.Mode.DETERMINISTIC;
+		if (SPECULATE && !speculate) warn("Not speculating, deterministic runs have to play out the same every time");
+
+		// From here on only the updater's worker touches the model, we read its snapshots. Speculation prepares offers
+		// from those too, so the protocol thread never has to copy the model for it
+		if (ModelUpdater.enabled() || speculate) updater = new ModelUpdater<>(getPartyId().toString(), this::copyModel);
+
+		if (speculate) {
+			String name = getPartyId().toString();
+			speculator = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "group23-speculate-" + name);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		// Give the JIT a head start, only the first agent in the JVM does this
+		int turns = Warmup.once(this, Warmup.budgetMillis());
+		if (turns > 0) log("Warmed up over " + turns + " turns");
+
+		if (Watchdog.enabled()) {
+			// Nothing else is running yet, so the first fallback can be worked out right here
+			prepareFallback();
+			watchdog = new Watchdog(getPartyId().toString());
+		}
 		log("Initialised");
+		metrics.init(System.nanoTime() - start);
+	}
+
+	/**
+	 * Take on our preferences: max bid, issue weights and frequencies preloaded from our own evaluations
+	 */
+	protected void setup(Preferences preferences) {
+		this.preferences = preferences;
+		if (preferences.getFailures() > 0) {
+			warn("Failed to getEvaluation() for " + preferences.getFailures() + " value(s)");
+			metrics.failure();
+		}
+
+		// Set the max bid
+		maxBid = preferences.getMaxBid();
+
+		// Get the weighting of the issues
+		weights.putAll(preferences.getWeights());
+
+		Bid max = maxBid;
+		if (CROWD > 0) crowd = new Crowd(this.getPartyId(), max, CROWD, random.split(), this::drop);
+		update(() -> {
+			// Add ourselves to the agents with our preference, the crowd starts with it
+			if (crowd == null) agents.put(this.getPartyId(), new Offer(this.getPartyId(), max));
+
+			// Preload frequencies, make it much better as it can consider more options
+			max.getValues().forEach((Integer id, Value value) -> {
+				Preferences.IssueTable table = preferences.getTable(id);
+				if (value instanceof ValueDiscrete && table != null) {
+					Map<String, Integer> frequency = frequencies.computeIfAbsent(id, key -> new HashMap<>());
+
+					int total = 0;
+					for (int i = 0; i < table.size(); i++) {
+						// Evaluate to get good values that obey our preferences
+						double evaluation = table.getEvaluation(i, Double.NaN);
+						int count = Double.isNaN(evaluation) ? 1 : (int) Math.ceil(frequencyMultiplier * evaluation);
+						total += count;
+						frequency.put(table.getValue(i).getValue(), count);
+					}
+					frequency.put("__total__", total);
+				}
+			});
+		});
+
+		receiveMessage(this.getPartyId(), new Offer(this.getPartyId(), maxBid));
 	}
 
 	/**
@@ -164,67 +426,111 @@ public class Agent23 extends AbstractNegotiationParty {
 	 */
 	@Override
 	public Action chooseAction(List<Class<? extends Action>> list) {
-		try {
-			log("ChooseAction(" + list + ")");
-
-			// Check if the max  bid has been set
-			if (maxBid == null) {
-				// Set the max bid
-				maxBid = this.getMaxUtilityBid();
-
-				// Add ourselves to the agents with our preference
-				agents.put(this.getPartyId(), new Offer(this.getPartyId(), maxBid));
+		long start = System.nanoTime();
+		Action action;
+		if (watchdog != null) {
+			Turn turn = new Turn();
+			action = watchdog.call(() -> {
+				current = turn;
+				return decide(list);
+			}, Watchdog.budgetNanos(getTimeLine()), () -> overran(turn));
+			watchdog.execute(this::prepareFallback);
+		} else {
+			action = decide(list);
+		}
+		metrics.chooseAction(System.nanoTime() - start, action);
+		return action;
+	}
 
-				// Get the utility space
-				UtilitySpace space = this.getUtilitySpace();
+	/**
+	 * The turn missed its deadline, offer what we prepared last turn. Runs on the caller, so it only reads the
+	 * fallback and leaves recording the offer to the worker. If the turn sent its own action just in time, that's
+	 * the one we send.
+	 */
+	protected Action overran(Turn turn) {
+		Bid bid = fallback;
+		Action action = bid != null ? new Offer(this.getPartyId(), bid) : new EndNegotiation(this.getPartyId());
+		if (!turn.claim(action)) return turn.getSent();
+
+		warn(bid != null ? "Turn overran the watchdog, sending the fallback offer" : "Turn overran the watchdog with no fallback prepared, walking away");
+		metrics.timeout();
+		receiveMessage(this.getPartyId(), action);
+		return action;
+	}
 
-				// Default weights of value = 1
-				int numberOfIssues = maxBid.getIssues().size();
+	/**
+	 * Record an action we're sending this turn. False, and nothing recorded, if the watchdog has already sent the
+	 * fallback instead because we took too long.
+	 */
+	protected boolean send(Action action) {
+		if (current != null && !current.claim(action)) {
+			log("Dropping " + action + ", the turn was abandoned");
+			return false;
+		}
+		receiveMessage(this.getPartyId(), action);
+		return true;
+	}
 
-				// Assign weights if we are additive
-				if (space instanceof AdditiveUtilitySpace) {
-					AdditiveUtilitySpace additiveSpace = (AdditiveUtilitySpace) space;
+	/**
+	 * One call to chooseAction under the watchdog, whichever of the turn and the fallback claims it first is sent
+	 */
+	protected static class Turn {
+		private final AtomicReference<Action> sent = new AtomicReference<>();
 
-					// Get the weighting of the issues
-					maxBid.getValues().forEach((Integer id, Value value) -> weights.put(id, additiveSpace.getWeight(id) * numberOfIssues));
-				} else {
-					// Set weights to 1 as a fallback
-					Map<Integer, Value> map = new HashMap<>(maxBid.getValues());
-					map.keySet().forEach((Integer id) -> weights.put(id, 1.0));
-				}
+		boolean claim(Action action) {
+			return sent.compareAndSet(null, action);
+		}
 
-				// Preload frequencies, make it much better as it can consider more options
-				maxBid.getValues().forEach((Integer id, Value value) -> {
-					if(value instanceof ValueDiscrete) {
-						IssueDiscrete issueDiscrete = (IssueDiscrete) this.getUtilitySpace().getDomain().getIssues().get(id - 1);
+		Action getSent() {
+			return sent.get();
+		}
+	}
 
-						if (!frequencies.containsKey(id)) {
-							frequencies.put(id, new HashMap<>());
-							frequencies.get(id).put("__total__", 0);
-						}
+	/**
+	 * The last bid we offered, null if we haven't yet
+	 */
+	protected Bid lastOffered() {
+		for (Iterator<Pair<AgentID, Offer>> iterator = history.descendingIterator(); iterator.hasNext(); ) {
+			Pair<AgentID, Offer> pair = iterator.next();
+			if (this.getPartyId().equals(pair.getFirst())) return pair.getSecond().getBid();
+		}
+		return null;
+	}
 
-						int total = 0;
-						for (ValueDiscrete valueDiscrete : issueDiscrete.getValues()) {
-							// Evaluate to get good values that obey our preferences
-							int evaluation = 1;
-
-							try {
-								if (space instanceof AdditiveUtilitySpace) {
-									AdditiveUtilitySpace additiveSpace = (AdditiveUtilitySpace) space;
-									evaluation = (int) Math.ceil(frequencyMultiplier * ((EvaluatorDiscrete) ((AdditiveUtilitySpace) this.getUtilitySpace()).getEvaluator(id)).getEvaluation(valueDiscrete));
-								}
-							} catch (Exception e) {
-								warn("Failed to getEvaluation(" + valueDiscrete + ")");
-							}
+	/**
+	 * Work out a safe offer for next turn: repeat our last offer, or our max bid, or the best of a few random bids
+	 * if we haven't got that far yet. Runs on the watchdog worker, or in init before there is one.
+	 */
+	protected void prepareFallback() {
+		try {
+			Bid bid = lastOffered();
+			if (bid == null) bid = maxBid;
+			if (bid == null) {
+				for (int i = 0; i < 10; i++) {
+					Bid random = this.generateRandomBid();
+					if (bid == null || this.getUtility(random) > this.getUtility(bid)) bid = random;
+				}
+			}
+			fallback = bid;
+		} catch (Throwable throwable) {
+			warn("Failed to prepare a fallback offer");
+			metrics.failure();
+		}
+	}
 
-							total += evaluation;
-							frequencies.get(id).put(valueDiscrete.getValue(), evaluation);
-						}
-						frequencies.get(id).put("__total__", total);
-					}
-				});
+	/**
+	 * Decide what to do this turn, never throws
+	 */
+	protected Action decide(List<Class<? extends Action>> list) {
+		try {
+			log("ChooseAction(" + list + ")");
+			learnArchived();
 
-				receiveMessage(this.getPartyId(), new Offer(this.getPartyId(), maxBid));
+			// Init should have set us up, do it now if it couldn't
+			if (maxBid == null) {
+				Trace.Phase setup = Trace.phase();
+				setup(preferences != null ? preferences : Preferences.compute(this.getUtilitySpace(), this::getMaxUtilityBid));
+				setup.finish(this, "setup", 0, 1);
 			}
 
 			// According to Stacked Alternating Offers Protocol list includes
@@ -247,171 +553,392 @@ public class Agent23 extends AbstractNegotiationParty {
 			Bid last = history.peekLast().getSecond().getBid();
 			if(last == null) last = this.generateRandomBid();
 
-			// Make a proposal, needs to be HashMap to avoid a cast
-			HashMap<Integer, Value> proposal = new HashMap<>(maxBid.getValues());
+			// Trade off if we can: the bid closest to theirs that we'd still take, no need for the wheel
+			BidIndex bidIndex = this.bidIndex;
+			if (bidIndex != null) {
+				Bid tradeOff = tradeOff(bidIndex, last, willingness);
+				if (tradeOff != null) return respond(last, willingness, tradeOff);
+			}
 
-			// Roulette Wheel
-			RouletteWheel rouletteWheel = new RouletteWheel();
+			// Or breed one
+			if (GENETIC) {
+				Bid evolved = evolve(last, willingness);
+				if (evolved != null) return respond(last, willingness, evolved);
+			}
 
-			proposal.forEach((Integer id, Value value) -> {
-				if (value instanceof ValueDiscrete) {
-					// Store a list of pairs for later
-					List<Pair<Double, String>> sublist = new ArrayList<>();
-					double max = 0, total = 0;
+			// Or look ahead
+			if (SEARCH) {
+				Action action = search(last, willingness);
+				if (action != null) return action;
+			}
 
-					// Get the current Issue
-					IssueDiscrete issueDiscrete = (IssueDiscrete) this.getUtilitySpace().getDomain().getIssues().get(id - 1);
+			// Use the offers we prepared while waiting if one still fits
+			Model model = model();
+			Bid speculated = speculated(model, willingness);
+			if (speculated != null) return respond(last, willingness, speculated);
 
-					for (ValueDiscrete valueDiscrete : issueDiscrete.getValues()) {
-						// score each choice, default is 0.5
-						double evaluation = 0.5;
+			return respond(last, willingness, propose(model, willingness, random));
+		} catch (Throwable throwable) {
+			warn("CHOOSE ACTION FAILED, RETURNING EITHER MAX BID OR A RANDOM BID TO KEEP US IN THE RUNNING!!!");
+			metrics.failure();
+			throwable.printStackTrace();
+			return new Offer(this.getPartyId(), maxBid != null ? maxBid : this.generateRandomBid());
+		}
+	}
 
-						// Only makes sense if we have an additive space
-						if (this.getUtilitySpace() instanceof AdditiveUtilitySpace) {
-							try {
-								// Get the evaluation for that value
-								evaluation = ((EvaluatorDiscrete) ((AdditiveUtilitySpace) this.getUtilitySpace()).getEvaluator(id)).getEvaluation(valueDiscrete);
-							} catch (Exception e) {
-								warn("Failed to getEvaluation(" + valueDiscrete + ")");
-							}
-						}
-						// Get the frequency for the value if it's not yet been seen default to 1/number of issues
-						double frequency = frequencies.get(id).containsKey(valueDiscrete.getValue()) ? ((double) frequencies.get(id).get(valueDiscrete.getValue()) / (double) frequencies.get(id).get("__total__")) : (1.0 / maxBid.getIssues().size());
-
-						// Create a fitness for the value
-						double score = evaluation * frequency * weights.get(id);
-						max = Math.max(max, score);
-						total += score;
-						sublist.add(new Pair<>(score, valueDiscrete.getValue()));
-					}
+	/**
+	 * Build the roulette wheel from the model and spin it until the proposal is near our willingness
+	 */
+	protected Bid propose(Model model, double willingness, SplittableRandom random) {
+		Trace.Phase wheel = Trace.phase();
+
+		// Make a proposal, needs to be HashMap to avoid a cast
+		HashMap<Integer, Value> proposal = new HashMap<>(maxBid.getValues());
+
+		// Roulette Wheel
+		RouletteWheel rouletteWheel = new RouletteWheel();
+
+		proposal.forEach((Integer id, Value value) -> {
+			if (value instanceof ValueDiscrete) {
+				// Store a list of pairs for later
+				List<Pair<Double, String>> sublist = new ArrayList<>();
+				double max = 0, total = 0;
+
+				// Get the current Issue
+				Preferences.IssueTable table = preferences.getTable(id);
+
+				for (int k = 0; k < table.size(); k++) {
+					ValueDiscrete valueDiscrete = table.getValue(k);
+
+					// score each choice, default is 0.5 (only makes sense if we have an additive space)
+					double evaluation = table.getEvaluation(k, 0.5);
+					// Get the frequency for the value if it's not yet been seen default to 1/number of issues
+					double frequency = model.frequencies.get(id).containsKey(valueDiscrete.getValue()) ? ((double) model.frequencies.get(id).get(valueDiscrete.getValue()) / (double) model.frequencies.get(id).get("__total__")) : (1.0 / maxBid.getIssues().size());
 
-					rouletteWheel.updateMax(total);
-					RouletteWheel.InnerWheel innerWheel = new RouletteWheel.InnerWheel(max, total, sublist);
-					rouletteWheel.addInnerWheel(total, innerWheel);
-				} else if (value instanceof ValueInteger) {
+					// Create a fitness for the value
+					double score = evaluation * frequency * weights.get(id);
+					max = Math.max(max, score);
+					total += score;
+					sublist.add(new Pair<>(score, valueDiscrete.getValue()));
+				}
+
+				rouletteWheel.updateMax(total);
+				RouletteWheel.InnerWheel innerWheel = new RouletteWheel.InnerWheel(max, total, sublist);
+				rouletteWheel.addInnerWheel(total, innerWheel);
+			} else if (value instanceof ValueInteger && model.picks != null) {
+				// Many parties, the crowd has already worked out the rules below
+				proposal.put(id, new ValueInteger(lerp(model.picks.get(id).intValue(), ((ValueInteger) maxBid.getValue(id)).getValue(), Math.pow(willingness, weights.get(id)))));
+			} else if (value instanceof ValueReal && model.picks != null) {
+				proposal.put(id, new ValueReal(lerp(model.picks.get(id), ((ValueReal) maxBid.getValue(id)).getValue(), Math.pow(willingness, weights.get(id)))));
+			} else if (value instanceof ValueInteger) {
                     //<editor-fold desc="Value Integer Rules">
                     int sum = 0;
-					int count = 0;
+				int count = 0;
 
-					for (Map.Entry<AgentID, Offer> agent : agents.entrySet()) {
-						sum += ((ValueInteger) agent.getValue().getBid().getValue(id)).getValue();
-						++count;
-					}
+				for (Map.Entry<AgentID, Offer> agent : model.agents.entrySet()) {
+					sum += ((ValueInteger) agent.getValue().getBid().getValue(id)).getValue();
+					++count;
+				}
 
-					int bestValue = sum / count; // Start with the average
-					int minDifference = Math.abs(bestValue - ((ValueInteger) maxBid.getValue(id)).getValue());
+				int bestValue = sum / count; // Start with the average
+				int minDifference = Math.abs(bestValue - ((ValueInteger) maxBid.getValue(id)).getValue());
 
-					for (Map.Entry<AgentID, Offer> agent : agents.entrySet()) {
-						if (agent.getKey() == this.getPartyId()) continue;
+				for (Map.Entry<AgentID, Offer> agent : model.agents.entrySet()) {
+					if (agent.getKey() == this.getPartyId()) continue;
 
-						int difference = Math.abs(((ValueInteger) agent.getValue().getBid().getValue(id)).getValue() - ((ValueInteger) maxBid.getValue(id)).getValue());
-						if (difference < minDifference) {
-							minDifference = difference;
-							bestValue = ((ValueInteger) agent.getValue().getBid().getValue(id)).getValue();
-						}
+					int difference = Math.abs(((ValueInteger) agent.getValue().getBid().getValue(id)).getValue() - ((ValueInteger) maxBid.getValue(id)).getValue());
+					if (difference < minDifference) {
+						minDifference = difference;
+						bestValue = ((ValueInteger) agent.getValue().getBid().getValue(id)).getValue();
 					}
+				}
 
-					proposal.put(id, new ValueInteger(lerp(bestValue, ((ValueInteger) maxBid.getValue(id)).getValue(), Math.pow(willingness, weights.get(id)))));
+				proposal.put(id, new ValueInteger(lerp(bestValue, ((ValueInteger) maxBid.getValue(id)).getValue(), Math.pow(willingness, weights.get(id)))));
                     //</editor-fold>
-				} else if (value instanceof ValueReal) {
+			} else if (value instanceof ValueReal) {
                     //<editor-fold desc="Value Real Rules">
                     System.out.println("WE WERE TOLD THERE WOULDN'T BE ANY REAL'S!!!!");
 
-					double sum = 0;
-					long count = 0;
+				double sum = 0;
+				long count = 0;
 
-					for (Map.Entry<AgentID, Offer> agent : agents.entrySet()) {
-						sum += ((ValueReal) agent.getValue().getBid().getValue(id)).getValue();
-						++count;
-					}
+				for (Map.Entry<AgentID, Offer> agent : model.agents.entrySet()) {
+					sum += ((ValueReal) agent.getValue().getBid().getValue(id)).getValue();
+					++count;
+				}
 
-					double bestValue = sum / count; // Start with the average
-					double minDifference = Math.abs(bestValue - ((ValueReal) maxBid.getValue(id)).getValue());
+				double bestValue = sum / count; // Start with the average
+				double minDifference = Math.abs(bestValue - ((ValueReal) maxBid.getValue(id)).getValue());
 
-					for (Map.Entry<AgentID, Offer> agent : agents.entrySet()) {
-						if (agent.getKey() == this.getPartyId()) continue;
+				for (Map.Entry<AgentID, Offer> agent : model.agents.entrySet()) {
+					if (agent.getKey() == this.getPartyId()) continue;
 
-						double difference = Math.abs(((ValueReal) agent.getValue().getBid().getValue(id)).getValue() - ((ValueReal) maxBid.getValue(id)).getValue());
-						if (difference < minDifference) {
-							minDifference = difference;
-							bestValue = ((ValueReal) agent.getValue().getBid().getValue(id)).getValue();
-						}
+					double difference = Math.abs(((ValueReal) agent.getValue().getBid().getValue(id)).getValue() - ((ValueReal) maxBid.getValue(id)).getValue());
+					if (difference < minDifference) {
+						minDifference = difference;
+						bestValue = ((ValueReal) agent.getValue().getBid().getValue(id)).getValue();
 					}
-
-					proposal.put(id, new ValueReal(lerp(bestValue, ((ValueReal) maxBid.getValue(id)).getValue(), Math.pow(willingness, weights.get(id)))));
-                    //</editor-fold>
-				} else {
-					throw new UnsupportedOperationException("Unexpected value type!");
 				}
-			});
 
-			// TODO: Improve readability
-			// Spin the wheel, if additive
-			if (this.getUtilitySpace() instanceof AdditiveUtilitySpace) {
-				log(rouletteWheel);
-
-				// Loop until within range, loop with an upper limit.
-				// If we fail to find a good solution, just try to find one with a minimum value
-				int c = 0;
-
-				for (;
-					(c < 10 * maxBid.getIssues().size() && !within(this.getUtility(new Bid(this.getUtilitySpace().getDomain(), proposal)), willingness - 0.1, willingness + 0.1)) ||
-					(c < 20 * maxBid.getIssues().size() && this.getUtility(new Bid(this.getUtilitySpace().getDomain(), proposal)) <= willingness - 0.1);
-				c++) {
-					double outerValue = Math.random() * rouletteWheel.getTotal();
-
-					// Start on a random wheel
-					int is = rouletteWheel.getInnerWheels().size();
-					int io = (int) Math.round(Math.random() * is);
-					for (int i = 0; i < rouletteWheel.getInnerWheels().size(); i++) {
-						// Max, total, sublist
-						RouletteWheel.InnerWheel issue = rouletteWheel.getInnerWheels().get((i + io) % is);
-						outerValue -= rouletteWheel.getMax() * issueBias - issue.getMax();
-
-						if (outerValue <= 0) {
-							// We have found our issue
-							double innerValue = Math.random() * issue.getTotal();
-
-							// Start on a random wheel
-							int js = issue.getValuesList().size();
-							int jo = (int) Math.round(Math.random() * js);
-							for (int j = 0; j < issue.getValuesList().size(); j++) {
-								// Value, string
-								Pair<Double, String> choice = issue.getValuesList().get((j + jo) % js);
-								innerValue -= choice.getFirst();
-
-								// We have found our choice
-								if (innerValue <= 0) {
-									proposal.put(i, new ValueDiscrete(choice.getSecond()));
-									break;
-								}
+				proposal.put(id, new ValueReal(lerp(bestValue, ((ValueReal) maxBid.getValue(id)).getValue(), Math.pow(willingness, weights.get(id)))));
+                    //</editor-fold>
+			} else {
+				throw new UnsupportedOperationException("Unexpected value type!");
+			}
+		});
+		wheel.finish(this, "wheel", 0, willingness);
+
+		// TODO: Improve readability
+		// Spin the wheel, if additive
+		if (this.getUtilitySpace() instanceof AdditiveUtilitySpace) {
+			Trace.Phase spin = Trace.phase();
+			log(rouletteWheel);
+
+			// Loop until within range, loop with an upper limit.
+			// If we fail to find a good solution, just try to find one with a minimum value
+			int c = 0;
+
+			for (;
+				(c < 10 * maxBid.getIssues().size() && !within(this.getUtility(new Bid(this.getUtilitySpace().getDomain(), proposal)), willingness - 0.1, willingness + 0.1)) ||
+				(c < 20 * maxBid.getIssues().size() && this.getUtility(new Bid(this.getUtilitySpace().getDomain(), proposal)) <= willingness - 0.1);
+			c++) {
+				double outerValue = random.nextDouble() * rouletteWheel.getTotal();
+
+				// Start on a random wheel
+				int is = rouletteWheel.getInnerWheels().size();
+				int io = is > 0 ? random.nextInt(is) : 0;
+				for (int i = 0; i < rouletteWheel.getInnerWheels().size(); i++) {
+					// Max, total, sublist
+					RouletteWheel.InnerWheel issue = rouletteWheel.getInnerWheels().get((i + io) % is);
+					outerValue -= rouletteWheel.getMax() * issueBias - issue.getMax();
+
+					if (outerValue <= 0) {
+						// We have found our issue
+						double innerValue = random.nextDouble() * issue.getTotal();
+
+						// Start on a random wheel
+						int js = issue.getValuesList().size();
+						int jo = random.nextInt(js);
+						for (int j = 0; j < issue.getValuesList().size(); j++) {
+							// Value, string
+							Pair<Double, String> choice = issue.getValuesList().get((j + jo) % js);
+							innerValue -= choice.getFirst();
+
+							// We have found our choice
+							if (innerValue <= 0) {
+								proposal.put(i, new ValueDiscrete(choice.getSecond()));
+								break;
 							}
-
-							break;
 						}
+
+						break;
 					}
 				}
-				log("The wheel spun " + c + " time(s)");
 			}
+			log("The wheel spun " + c + " time(s)");
+			double utility = this.getUtility(new Bid(this.getUtilitySpace().getDomain(), proposal));
+			metrics.spins(c, !within(utility, willingness - 0.1, willingness + 0.1));
+			spin.finish(this, "spin", c, utility);
+		}
 
-			// Is the offer good enough?
-			Bid bid = new Bid(this.getUtilitySpace().getDomain(), proposal);
-			if (this.getUtilitySpace().getUtility(last) >= willingness) {
-				log("Accepting offer " + this.getUtilitySpace().getUtility(last) + " " + last);
-				Accept accept = new Accept(this.getPartyId(), last);
-				receiveMessage(this.getPartyId(), accept);
-				return accept;
-			} else {
-				// Offer is no good, propose our own
-				log("Proposing offer " + this.getUtilitySpace().getUtility(bid) + " " + bid);
-				Offer offer = new Offer(this.getPartyId(), bid);
-				receiveMessage(this.getPartyId(), offer);
-				return offer;
+		return new Bid(this.getUtilitySpace().getDomain(), proposal);
+	}
+
+	/**
+	 * Accept their last bid if it's good enough for us, otherwise offer ours
+	 */
+	protected Action respond(Bid last, double willingness, Bid bid) {
+		// Is the offer good enough?
+		Trace.Phase acceptance = Trace.phase();
+		double lastUtility = this.getUtilitySpace().getUtility(last);
+		acceptance.finish(this, "acceptance", 0, lastUtility);
+
+		Trace.Phase construction = Trace.phase();
+		if (lastUtility >= willingness || bestLately(lastUtility)) {
+			log("Accepting offer " + lastUtility + " " + last);
+			Accept accept = new Accept(this.getPartyId(), last);
+			send(accept);
+			construction.finish(this, "accept", 0, lastUtility);
+			return accept;
+		} else {
+			// Offer is no good, propose our own
+			double utility = this.getUtilitySpace().getUtility(bid);
+			log("Proposing offer " + utility + " " + bid);
+			Offer offer = new Offer(this.getPartyId(), bid);
+			send(offer);
+			construction.finish(this, "offer", 0, utility);
+			return offer;
+		}
+	}
+
+	/**
+	 * Late on, is their offer as good as anything we've been offered lately, and still good enough at all?
+	 */
+	protected boolean bestLately(double utility) {
+		return received != null && !received.isEmpty() && getTimeLine().getTime() >= WINDOW_TIME && utility >= minimumUtility && utility >= received.max();
+	}
+
+	/**
+	 * Of the bids closest to their last offer that are still good enough for us, the one the other parties have
+	 * offered the values of most often. Null if there are none.
+	 */
+	protected Bid tradeOff(BidIndex bidIndex, Bid last, double willingness) {
+		Model model = model();
+		Bid best = null;
+		double bestScore = -1;
+		for (Bid bid : bidIndex.nearest(last, TRADE_OFF_CANDIDATES, willingness)) {
+			double score = 0;
+			for (Map<Integer, Map<String, Integer>> opponent : model.opponents.values()) {
+				for (Map.Entry<Integer, Value> entry : bid.getValues().entrySet()) {
+					if (entry.getValue() instanceof ValueDiscrete) score += share(opponent.get(entry.getKey()), ((ValueDiscrete) entry.getValue()).getValue());
+				}
 			}
-		} catch (Throwable throwable) {
-			warn("CHOOSE ACTION FAILED, RETURNING EITHER MAX BID OR A RANDOM BID TO KEEP US IN THE RUNNING!!!");
-			throwable.printStackTrace();
-			return new Offer(this.getPartyId(), maxBid != null ? maxBid : this.generateRandomBid());
+
+			if (score > bestScore) {
+				best = bid;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Evolve an offer from our max bid and their last bid. Null unless every issue is discrete and our space is additive.
+	 */
+	protected Bid evolve(Bid last, double willingness) {
+		Tables tables = tables();
+		if (tables == null) return null;
+
+		BidOptimizer optimizer = new BidOptimizer(tables.ours, tables.scores, tables.wheel, GENETIC_POPULATION);
+		int[] genes = optimizer.evolve(new int[][] {tables.encode(maxBid), tables.encode(last)}, willingness, GENETIC_NANOS, GENETIC_ISLANDS, random);
+		log("Evolved for " + optimizer.getGenerations() + " generation(s)");
+		return tables.decode(genes);
+	}
+
+	/**
+	 * Search the rest of the negotiation for our best move: accepting their last bid or one of a handful of offers.
+	 * Null unless every issue is discrete and our space is additive, and until we've heard from another party.
+	 */
+	protected Action search(Bid last, double willingness) {
+		Tables tables = tables();
+		if (tables == null || tables.theirs.length == 0) return null;
+
+		// Candidates: our max bid, what we'd concede to now, and some random bids that are good enough
+		List<int[]> candidates = new ArrayList<>();
+		candidates.add(tables.encode(maxBid));
+		Bid offered = lastOffered();
+		if (offered != null) candidates.add(tables.encode(offered));
+		for (int i = 0; i < 50 && candidates.size() < SEARCH_CANDIDATES; i++) {
+			Bid bid = this.generateRandomBid();
+			if (this.getUtility(bid) >= willingness) candidates.add(tables.encode(bid));
+		}
+
+		// Guess how many rounds we have left from how many we've had
+		double time = getTimeLine().getTime();
+		int horizon = (int) Math.min(SEARCH_HORIZON, time > 0 ? Math.ceil(round * (1 - time) / time) : SEARCH_HORIZON);
+
+		OfferSearch search = new OfferSearch(tables.ours, tables.theirs, candidates.toArray(new int[0][]), horizon, time, this.getUtilitySpace().getReservationValueUndiscounted(), willingness);
+		int move = search.search(this.getUtility(last), SEARCH_NANOS, SEARCH_THREADS, random.nextLong());
+		log("Searched " + search.getSimulations() + " simulation(s)");
+
+		if (move == OfferSearch.ACCEPT) {
+			Accept accept = new Accept(this.getPartyId(), last);
+			send(accept);
+			return accept;
+		}
+		Offer offer = new Offer(this.getPartyId(), tables.decode(candidates.get(move)));
+		send(offer);
+		return offer;
+	}
+
+	/**
+	 * Our profile and opponent model as tables over value ordinals, for the optimizers. Null unless every issue is
+	 * discrete and our space is additive.
+	 */
+	protected Tables tables() {
+		if (!(this.getUtilitySpace() instanceof AdditiveUtilitySpace)) return null;
+		AdditiveUtilitySpace space = (AdditiveUtilitySpace) this.getUtilitySpace();
+		List<Issue> issues = space.getDomain().getIssues();
+
+		Model model = model();
+		List<Map<Integer, Map<String, Integer>>> opponents = new ArrayList<>(model.opponents.values());
+		Tables tables = new Tables(space.getDomain(), issues.size(), opponents.size());
+		for (int i = 0; i < issues.size(); i++) {
+			int id = issues.get(i).getNumber();
+			Preferences.IssueTable table = preferences.getTable(id);
+			Map<String, Integer> frequency = model.frequencies.get(id);
+			if (table == null || frequency == null) return null;
+
+			tables.issues[i] = (IssueDiscrete) issues.get(i);
+			tables.ours[i] = new double[table.size()];
+			tables.scores[i] = new double[table.size()];
+			tables.wheel[i] = new double[table.size()];
+			for (int k = 0; k < table.size(); k++) {
+				int count = frequency.getOrDefault(table.getValue(k).getValue(), 0);
+				tables.ours[i][k] = space.getWeight(id) * table.getEvaluation(k, 0);
+				// Scored like the roulette wheel scores values
+				tables.wheel[i][k] = table.getEvaluation(k, 0.5) * (count > 0 ? (double) count / frequency.get("__total__") : 1.0 / issues.size()) * weights.get(id);
+			}
+
+			// Each opponent's counts, and those over their most offered value averaged over the opponents
+			for (int o = 0; o < opponents.size(); o++) {
+				Map<String, Integer> theirs = opponents.get(o).getOrDefault(id, Collections.emptyMap());
+				int most = 1;
+				for (Map.Entry<String, Integer> entry : theirs.entrySet()) if (!entry.getKey().equals("__total__")) most = Math.max(most, entry.getValue());
+
+				tables.theirs[o][i] = new double[table.size()];
+				for (int k = 0; k < table.size(); k++) {
+					tables.theirs[o][i][k] = theirs.getOrDefault(table.getValue(k).getValue(), 0);
+					tables.scores[i][k] += tables.theirs[o][i][k] / most / opponents.size();
+				}
+			}
+		}
+		return tables;
+	}
+
+	/**
+	 * One row per issue, one column per value in the issue's order
+	 */
+	protected static class Tables {
+		final Domain domain;
+		final IssueDiscrete[] issues;
+		/**
+		 * Our utility contribution of each value
+		 */
+		final double[][] ours;
+		/**
+		 * How often each opponent has offered each value, one table per opponent
+		 */
+		final double[][][] theirs;
+		/**
+		 * How often each opponent has offered each value over their most offered value of the issue, averaged over
+		 * the opponents. 0 everywhere until we've heard from one.
+		 */
+		final double[][] scores;
+		/**
+		 * Weight of each value on the roulette wheel
+		 */
+		final double[][] wheel;
+
+		Tables(Domain domain, int size, int opponents) {
+			this.domain = domain;
+			issues = new IssueDiscrete[size];
+			ours = new double[size][];
+			theirs = new double[opponents][size][];
+			scores = new double[size][];
+			wheel = new double[size][];
+		}
+
+		int[] encode(Bid bid) {
+			int[] genes = new int[issues.length];
+			for (int i = 0; i < issues.length; i++) genes[i] = Math.max(0, issues[i].getValueIndex((ValueDiscrete) bid.getValue(issues[i].getNumber())));
+			return genes;
+		}
+
+		Bid decode(int[] genes) {
+			HashMap<Integer, Value> values = new HashMap<>();
+			for (int i = 0; i < issues.length; i++) values.put(issues[i].getNumber(), issues[i].getValue(genes[i]));
+			return new Bid(domain, values);
 		}
 	}
 
@@ -420,8 +947,16 @@ public class Agent23 extends AbstractNegotiationParty {
 	 */
 	@Override
 	public void receiveMessage(AgentID sender, Action act) {
+		if (watchdog != null && !watchdog.isWorker()) {
+			// Our state lives on the worker, this has to wait behind any turn still running
+			watchdog.execute(() -> receiveMessage(sender, act));
+			return;
+		}
+
+		long start = System.nanoTime();
 		try {
 			super.receiveMessage(sender, act);
+			learnArchived();
 
 			log("receiveMessage(" + sender + "," + act + ")");
 
@@ -430,21 +965,13 @@ public class Agent23 extends AbstractNegotiationParty {
 
 				// storing last received offer
 				history.add(new Pair<>(sender, offer));
-				if (!agents.containsKey(sender)) agents.put(sender, offer);
-
-				offer.getBid().getValues().forEach((Integer id, Value value) -> {
-					// We only really care about discrete values
-					if (value instanceof ValueDiscrete) {
-						if (!frequencies.containsKey(id)) {
-							frequencies.put(id, new HashMap<>());
-							frequencies.get(id).put("__total__", 0);
-						}
+				update(() -> fold(sender, offer));
 
-						String string = ((ValueDiscrete) value).getValue();
-						frequencies.get(id).put(string, frequencies.get(id).containsKey(string) ? frequencies.get(id).get(string) + 1 : 1);
-						frequencies.get(id).put("__total__", frequencies.get(id).get("__total__") + 1);
-					}
-				});
+				if (!sender.equals(this.getPartyId())) {
+					archive(sender, offer.getBid());
+					if (received != null) received.add(this.getUtility(offer.getBid()), getTimeLine().getTime());
+					if (speculator != null) speculate();
+				}
 			} else if (act instanceof Accept) {
 				log("Awesome!");
 			} else if (act instanceof EndNegotiation) {
@@ -453,17 +980,321 @@ public class Agent23 extends AbstractNegotiationParty {
 		} catch(Throwable throwable) {
 			warn("RECEIVE MESSAGE FAILED, RETURNING EITHER MAX BID OR A RANDOM BID TO KEEP US IN THE RUNNING!!!");
 			throwable.printStackTrace();
+			metrics.failure();
+		} finally {
+			metrics.receiveMessage(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Add an offer to the agents, frequency and opponent tables
+	 */
+	protected void fold(AgentID sender, Offer offer) {
+		Trace.Update update = Trace.update();
+		if (crowd != null) {
+			// Outside the sample, all we wanted was their first offer
+			int parties = crowd.size();
+			if (!crowd.add(sender, offer.getBid())) {
+				// Only a new party changes the crowd's picks
+				if (crowd.size() != parties) folds++;
+				update.finish(this, sender, 0);
+				return;
+			}
+		} else if (!agents.containsKey(sender)) {
+			agents.put(sender, offer);
+		}
+
+		int issues = count(frequencies, offer.getBid(), 1);
+		if (!sender.equals(this.getPartyId())) count(opponents.computeIfAbsent(sender, key -> new HashMap<>()), offer.getBid(), 1);
+		folds++;
+		update.finish(this, sender, issues);
+	}
+
+	/**
+	 * Take a party that left the crowd's sample back out of the frequency and opponent tables, as if we had never
+	 * counted its offers
+	 */
+	protected void drop(AgentID party) {
+		Map<Integer, Map<String, Integer>> counts = opponents.remove(party);
+		if (counts == null) return;
+		counts.forEach((Integer id, Map<String, Integer> theirs) -> {
+			Map<String, Integer> frequency = frequencies.get(id);
+			theirs.forEach((String value, Integer count) -> frequency.merge(value, -count, Integer::sum));
+		});
+	}
+
+	/**
+	 * Add by (or take away, if negative) to the count of each discrete value in the bid, returns how many there were
+	 */
+	protected static int count(Map<Integer, Map<String, Integer>> table, Bid bid, int by) {
+		int discrete = 0;
+		for (Map.Entry<Integer, Value> entry : bid.getValues().entrySet()) {
+			Integer id = entry.getKey();
+			Value value = entry.getValue();
+			// We only really care about discrete values
+			if (value instanceof ValueDiscrete) {
+				discrete++;
+				if (!table.containsKey(id)) {
+					table.put(id, new HashMap<>());
+					table.get(id).put("__total__", 0);
+				}
+
+				String string = ((ValueDiscrete) value).getValue();
+				table.get(id).put(string, table.get(id).containsKey(string) ? table.get(id).get(string) + by : by);
+				table.get(id).put("__total__", table.get(id).get("__total__") + by);
+			}
+		}
+		return discrete;
+	}
+
+	/**
+	 * How often a value comes up in one issue's counts, 0 to 1. 0 if there are none.
+	 */
+	protected static double share(Map<String, Integer> frequency, String value) {
+		return frequency != null ? frequency.getOrDefault(value, 0) / (double) Math.max(1, frequency.get("__total__")) : 0;
+	}
+
+	/**
+	 * Change agents or frequencies, on the updater's worker if we have one or right now if not
+	 */
+	protected void update(Runnable change) {
+		if (updater != null) updater.submit(change);
+		else change.run();
+	}
+
+	/**
+	 * The agents and frequencies to decide with: the latest snapshot with background updates, the live maps without
+	 */
+	protected Model model() {
+		return updater != null ? updater.snapshot() : new Model(frequencies, agents, opponents, picks(), folds);
+	}
+
+	/**
+	 * A copy of the model nobody can change, for other threads
+	 */
+	protected Model copyModel() {
+		return Model.copy(frequencies, agents, opponents, picks(), folds);
+	}
+
+	/**
+	 * The crowd's integer and real picks, null unless run with -Dgroup23.crowd
+	 */
+	protected Map<Integer, Double> picks() {
+		return crowd != null ? crowd.picks() : null;
+	}
+
+	/**
+	 * Start preparing offers for our next turn from the latest model, replacing any we were still preparing. Our
+	 * willingness is random, so we prepare a few across the range it will most likely fall in.
+	 */
+	protected void speculate() {
+		if (maxBid == null || preferences == null || !(this.getUtilitySpace() instanceof AdditiveUtilitySpace)) return;
+		if (speculating != null) speculating.cancel(false);
+
+		// The updater publishes copies, so nothing is copied here. Our update is queued before this, the snapshot we
+		// get is as fresh as the worker has got to
+		ModelUpdater<Model> updater = this.updater;
+		SplittableRandom random = this.random.split();
+		int turn = round + 1;
+		double base = Math.max(minimumUtility, clamp01(-(Math.pow(stubbornness, clamp01(getTimeLine().getTime())) / stubbornness) + 0.90));
+
+		speculating = speculator.submit(() -> {
+			try {
+				Model snapshot = updater.snapshot();
+				Bid[] bids = new Bid[SPECULATE_OFFERS];
+				double[] utilities = new double[SPECULATE_OFFERS];
+				for (int i = 0; i < SPECULATE_OFFERS; i++) {
+					bids[i] = propose(snapshot, clamp01(base + 0.1 * i / (SPECULATE_OFFERS - 1)), random);
+					utilities[i] = this.getUtility(bids[i]);
+				}
+				speculation = new Speculation(turn, snapshot.version, bids, utilities);
+			} catch (Throwable throwable) {
+				warn("Failed to speculate on our next offer");
+				metrics.failure();
+			}
+		});
+	}
+
+	/**
+	 * A prepared offer for this turn as near our willingness as the wheel would get it, if it was prepared from the
+	 * model we have now. Null if there isn't one.
+	 */
+	protected Bid speculated(Model model, double willingness) {
+		Speculation speculation = this.speculation;
+		if (speculation == null || speculation.turn != round || speculation.version != model.version) return null;
+
+		Bid best = null;
+		double distance = 0.1;
+		for (int i = 0; i < speculation.bids.length; i++) {
+			double d = Math.abs(speculation.utilities[i] - willingness);
+			if (d <= distance) {
+				best = speculation.bids[i];
+				distance = d;
+			}
+		}
+		if (best != null) log("Offering what we prepared while waiting");
+		return best;
+	}
+
+	/**
+	 * Offers prepared for one turn from one version of the model
+	 */
+	protected static class Speculation {
+		final int turn;
+		final int version;
+		final Bid[] bids;
+		final double[] utilities;
+
+		Speculation(int turn, int version, Bid[] bids, double[] utilities) {
+			this.turn = turn;
+			this.version = version;
+			this.bids = bids;
+			this.utilities = utilities;
+		}
+	}
+
+	/**
+	 * Our opponent model, read only
+	 */
+	protected static class Model {
+		final Map<Integer, Map<String, Integer>> frequencies;
+		final Map<AgentID, Offer> agents;
+		final Map<AgentID, Map<Integer, Map<String, Integer>>> opponents;
+		/**
+		 * The crowd's picks for integer and real issues instead of agents, null unless there is a crowd
+		 */
+		final Map<Integer, Double> picks;
+		/**
+		 * Offers folded in when this was taken
+		 */
+		final int version;
+
+		Model(Map<Integer, Map<String, Integer>> frequencies, Map<AgentID, Offer> agents, Map<AgentID, Map<Integer, Map<String, Integer>>> opponents, Map<Integer, Double> picks, int version) {
+			this.frequencies = frequencies;
+			this.agents = agents;
+			this.opponents = opponents;
+			this.picks = picks;
+			this.version = version;
+		}
+
+		/**
+		 * Deep copy that nobody can change, for publishing to other threads
+		 */
+		static Model copy(Map<Integer, Map<String, Integer>> frequencies, Map<AgentID, Offer> agents, Map<AgentID, Map<Integer, Map<String, Integer>>> opponents, Map<Integer, Double> picks, int version) {
+			Map<AgentID, Map<Integer, Map<String, Integer>>> copies = new LinkedHashMap<>();
+			opponents.forEach((AgentID opponent, Map<Integer, Map<String, Integer>> counts) -> copies.put(opponent, copy(counts)));
+			// The picks are already read only
+			return new Model(copy(frequencies), Collections.unmodifiableMap(new LinkedHashMap<>(agents)), Collections.unmodifiableMap(copies), picks, version);
+		}
+
+		private static Map<Integer, Map<String, Integer>> copy(Map<Integer, Map<String, Integer>> frequencies) {
+			Map<Integer, Map<String, Integer>> copy = new HashMap<>();
+			frequencies.forEach((Integer id, Map<String, Integer> frequency) -> copy.put(id, Collections.unmodifiableMap(new HashMap<>(frequency))));
+			return Collections.unmodifiableMap(copy);
+		}
+	}
+
+	@Override
+	public HashMap<String, String> negotiationEnded(Bid acceptedBid) {
+		if (watchdog != null) watchdog.close();
+		if (updater != null) updater.close();
+		if (speculator != null) speculator.shutdownNow();
+		for (OfferArchive archive : opened) {
+			try {
+				archive.close();
+			} catch (Exception e) {
+				warn("Failed to write " + archive.getFile() + ": " + e);
+				metrics.failure();
+			}
+		}
+		opened.clear();
+		archives.clear();
+		learning.clear();
+		return super.negotiationEnded(acceptedBid);
+	}
+
+	/**
+	 * Record an opponent's offer for future sessions. The first time we hear from an opponent class, start reading
+	 * what it offered us in past sessions to learn from.
+	 */
+	protected void archive(AgentID sender, Bid bid) {
+		File directory = OfferArchive.directory();
+		if (directory == null || !archiving) return;
+
+		String opponent = OfferArchive.opponent(sender.getName());
+		try {
+			if (!archives.containsKey(opponent)) {
+				OfferArchive archive = OfferArchive.open(directory, opponent, this.getUtilitySpace());
+				archives.put(opponent, archive);
+				if (archive != null) {
+					opened.add(archive);
+					// The whole file has to be read, that's no job for the protocol thread
+					learning.put(archive, CompletableFuture.supplyAsync(() -> {
+						try {
+							return archive.counts();
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}));
+				}
+			}
+
+			OfferArchive archive = archives.get(opponent);
+			if (archive != null) archive.append(bid, getTimeLine().getTime());
+		} catch (Exception e) {
+			warn("Failed to archive offers from " + opponent + ": " + e);
+			metrics.failure();
+			archives.put(opponent, null);
+		}
+	}
+
+	/**
+	 * Learn from the archives that have finished being read
+	 */
+	protected void learnArchived() {
+		for (Iterator<Map.Entry<OfferArchive, CompletableFuture<long[][]>>> iterator = learning.entrySet().iterator(); iterator.hasNext(); ) {
+			Map.Entry<OfferArchive, CompletableFuture<long[][]>> entry = iterator.next();
+			if (!entry.getValue().isDone()) continue;
+			iterator.remove();
+			try {
+				learn(entry.getKey(), entry.getValue().join());
+			} catch (Exception e) {
+				warn("Failed to read " + entry.getKey().getFile() + ": " + e);
+				metrics.failure();
+			}
 		}
 	}
 
+	/**
+	 * Add the archived offers to our frequency table, scaled down to ARCHIVE_PRIOR offers so they only nudge it
+	 */
+	protected void learn(OfferArchive archive, long[][] counts) {
+		update(() -> {
+			for (int i = 0; i < counts.length; i++) {
+				long total = 0;
+				for (long count : counts[i]) total += count;
+				if (total == 0) continue;
+
+				Map<String, Integer> frequency = frequencies.computeIfAbsent(archive.getIssue(i).getNumber(), key -> new HashMap<>());
+				int added = 0;
+				for (int k = 0; k < counts[i].length; k++) {
+					int prior = (int) Math.round((double) ARCHIVE_PRIOR * counts[i][k] / total);
+					if (prior == 0) continue;
+					frequency.merge(archive.getIssue(i).getValue(k).getValue(), prior, Integer::sum);
+					added += prior;
+				}
+				frequency.merge("__total__", added, Integer::sum);
+			}
+		});
+		log("Learnt from " + archive.getFile());
+	}
+
 	/**
 	 * A human-readable description for this party.
 	 */
 	@Override
 	public String getDescription() {
-		String[] names = {"Alpha", "Bravo", "Charlie", "Delta", "Echo", "Foxtrot", "Golf", "Hotel", "India", "Juliet", "Kilo", "Lima", "Mike", "November", "Oscar", "Papa", "Quebec", "Romeo", "Sierra", "Tango", "Uniform", "Victor", "Whiskey", "X-ray", "Yankee", "Zulu"};
-		String[] descriptors = new String[]{"Submissive", "Soft", "Kind", "Reasonable", "Determined", "Firm", "Tough", "Angry", "Mad"};
-		return descriptors[(int) Math.round(clamp(Math.log10(stubbornness) + 1, 0, descriptors.length))] + " " + names[(Agent23.created - 1) % names.length] + " " + getClass().getSimpleName();
+		return DESCRIPTORS[(int) Math.round(clamp(Math.log10(stubbornness) + 1, 0, DESCRIPTORS.length - 1))] + " " + NAMES[Math.floorMod(identity, NAMES.length)] + " " + getClass().getSimpleName();
 	}
 
 	private Bid getMaxUtilityBid() {
@@ -472,6 +1303,7 @@ public class Agent23 extends AbstractNegotiationParty {
 		} catch (Exception e) {
 			e.printStackTrace();
 			warn("Failed to get maxUtilityBid()!");
+			metrics.failure();
 			return this.generateRandomBid();
 		}
 	}
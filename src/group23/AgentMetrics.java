@@ -0,0 +1,227 @@
+package group23;
+
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.Offer;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters for every Agent23 in the JVM, so we can watch agents under tournament load.
+ *
+ * Registered over JMX as group23:type=AgentMetrics the first time an agent is created. Run with
+ * -Dgroup23.metrics.dump=N to also print a snapshot to stderr every N seconds, or -Dgroup23.metrics=false to
+ * switch recording off.
+ */
+public class AgentMetrics implements AgentMetricsMXBean {
+	public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("group23.metrics"));
+
+	private final Histogram chooseAction = new Histogram();
+	private final Histogram receiveMessage = new Histogram();
+	private final Histogram init = new Histogram();
+	private final Histogram spins = new Histogram();
+	private final LongAdder spinCapExhausted = new LongAdder();
+	private final LongAdder accepts = new LongAdder();
+	private final LongAdder offers = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+
+	/**
+	 * Created on first use, holder idiom so the registration happens exactly once
+	 */
+	private static class Holder {
+		private static final AgentMetrics INSTANCE = new AgentMetrics().register();
+	}
+
+	public static AgentMetrics global() {
+		return Holder.INSTANCE;
+	}
+
+	private AgentMetrics register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("group23:type=AgentMetrics"));
+		} catch (Exception e) {
+			System.err.println("Failed to register AgentMetrics over JMX: " + e);
+		}
+
+		long period = Long.getLong("group23.metrics.dump", 0);
+		if (period > 0) {
+			ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "group23-metrics");
+				thread.setDaemon(true);
+				return thread;
+			});
+			dumper.scheduleAtFixedRate(() -> System.err.println(getSnapshot()), period, period, TimeUnit.SECONDS);
+		}
+		return this;
+	}
+
+	public void chooseAction(long nanos, Action action) {
+		if (!ENABLED) return;
+		chooseAction.record(nanos);
+		if (action instanceof Accept) accepts.increment();
+		else if (action instanceof Offer) offers.increment();
+	}
+
+	public void receiveMessage(long nanos) {
+		if (ENABLED) receiveMessage.record(nanos);
+	}
+
+	public void init(long nanos) {
+		if (ENABLED) init.record(nanos);
+	}
+
+	/**
+	 * How often the wheel spun this turn, and whether it ran out of spins before reaching the target
+	 */
+	public void spins(int count, boolean exhausted) {
+		if (!ENABLED) return;
+		spins.record(count);
+		if (exhausted) spinCapExhausted.increment();
+	}
+
+	/**
+	 * A Throwable was caught and we fell back to something safe
+	 */
+	public void failure() {
+		if (ENABLED) failures.increment();
+	}
+
+	/**
+	 * A turn overran the watchdog and we sent the fallback offer
+	 */
+	public void timeout() {
+		if (ENABLED) timeouts.increment();
+	}
+
+	//<editor-fold desc="MXBean">
+	@Override
+	public long getChooseActionCount() {
+		return chooseAction.getCount();
+	}
+
+	@Override
+	public double getChooseActionMeanMicros() {
+		return chooseAction.getMean() / 1e3;
+	}
+
+	@Override
+	public double getChooseActionP50Micros() {
+		return chooseAction.getPercentile(0.5) / 1e3;
+	}
+
+	@Override
+	public double getChooseActionP99Micros() {
+		return chooseAction.getPercentile(0.99) / 1e3;
+	}
+
+	@Override
+	public double getChooseActionMaxMicros() {
+		return chooseAction.getMax() / 1e3;
+	}
+
+	@Override
+	public long getReceiveMessageCount() {
+		return receiveMessage.getCount();
+	}
+
+	@Override
+	public double getReceiveMessageMeanMicros() {
+		return receiveMessage.getMean() / 1e3;
+	}
+
+	@Override
+	public double getReceiveMessageP50Micros() {
+		return receiveMessage.getPercentile(0.5) / 1e3;
+	}
+
+	@Override
+	public double getReceiveMessageP99Micros() {
+		return receiveMessage.getPercentile(0.99) / 1e3;
+	}
+
+	@Override
+	public double getReceiveMessageMaxMicros() {
+		return receiveMessage.getMax() / 1e3;
+	}
+
+	@Override
+	public long getInitCount() {
+		return init.getCount();
+	}
+
+	@Override
+	public double getInitMeanMicros() {
+		return init.getMean() / 1e3;
+	}
+
+	@Override
+	public double getInitP99Micros() {
+		return init.getPercentile(0.99) / 1e3;
+	}
+
+	@Override
+	public double getInitMaxMicros() {
+		return init.getMax() / 1e3;
+	}
+
+	@Override
+	public double getSpinsPerTurnMean() {
+		return spins.getMean();
+	}
+
+	@Override
+	public long getSpinsPerTurnP99() {
+		return spins.getPercentile(0.99);
+	}
+
+	@Override
+	public long getSpinCapExhausted() {
+		return spinCapExhausted.sum();
+	}
+
+	@Override
+	public long getAccepts() {
+		return accepts.sum();
+	}
+
+	@Override
+	public long getOffers() {
+		return offers.sum();
+	}
+
+	@Override
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	@Override
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+
+	@Override
+	public String getSnapshot() {
+		return "AgentMetrics[chooseAction(us) " + chooseAction.toString(1e3) + " | receiveMessage(us) " + receiveMessage.toString(1e3) + " | init(us) " + init.toString(1e3)
+				+ " | spins " + spins + " | spinCapExhausted=" + getSpinCapExhausted() + " accepts=" + getAccepts() + " offers=" + getOffers() + " failures=" + getFailures() + " timeouts=" + getTimeouts() + "]";
+	}
+
+	@Override
+	public void reset() {
+		chooseAction.reset();
+		receiveMessage.reset();
+		init.reset();
+		spins.reset();
+		spinCapExhausted.reset();
+		accepts.reset();
+		offers.reset();
+		failures.reset();
+		timeouts.reset();
+	}
+	//</editor-fold>
+}
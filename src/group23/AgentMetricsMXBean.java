@@ -0,0 +1,38 @@
+package group23;
+
+/**
+ * What AgentMetrics shows over JMX, under group23:type=AgentMetrics. Latencies are in microseconds.
+ */
+public interface AgentMetricsMXBean {
+	long getChooseActionCount();
+	double getChooseActionMeanMicros();
+	double getChooseActionP50Micros();
+	double getChooseActionP99Micros();
+	double getChooseActionMaxMicros();
+
+	long getReceiveMessageCount();
+	double getReceiveMessageMeanMicros();
+	double getReceiveMessageP50Micros();
+	double getReceiveMessageP99Micros();
+	double getReceiveMessageMaxMicros();
+
+	long getInitCount();
+	double getInitMeanMicros();
+	double getInitP99Micros();
+	double getInitMaxMicros();
+
+	double getSpinsPerTurnMean();
+	long getSpinsPerTurnP99();
+	long getSpinCapExhausted();
+	long getAccepts();
+	long getOffers();
+	long getFailures();
+	long getTimeouts();
+
+	/**
+	 * Everything as one line of text
+	 */
+	String getSnapshot();
+
+	void reset();
+}
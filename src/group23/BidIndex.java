@@ -0,0 +1,271 @@
+package group23;
+
+import negotiator.Bid;
+import negotiator.Domain;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import negotiator.utility.AbstractUtilitySpace;
+import negotiator.utility.AdditiveUtilitySpace;
+import negotiator.utility.EvaluatorDiscrete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the bids closest to a given bid, counting how many issues differ, among those good enough for us.
+ *
+ * Every outcome of a discrete additive domain is packed into a long, one fixed-width field of value ordinals per
+ * issue, and filed into a utility band. Each band is a BK-tree on Hamming distance, so a query only visits the
+ * bands above the utility it needs and prunes most of each tree with the triangle inequality. Domains with other
+ * kinds of issues, more than -Dgroup23.index.max outcomes (a million by default) or more than 64 bits of values
+ * can't be indexed.
+ *
+ * Immutable once built, agents on the same profile share one through the ProfileCache.
+ */
+public final class BidIndex {
+	public static final long MAX_OUTCOMES = Long.getLong("group23.index.max", 1 << 20);
+	private static final int BANDS = 16;
+	private static final ProfileCache<BidIndex> CACHE = new ProfileCache<>();
+
+	private final Domain domain;
+	private final IssueDiscrete[] issues;
+	private final int width;
+	private final long low;
+	private final Band[] bands = new Band[BANDS];
+	private final int size;
+
+	/**
+	 * One BK-tree over the outcomes in a utility band, stored as parallel arrays with the root at 0
+	 */
+	private static final class Band {
+		private final double min;
+		private long[] codes = new long[16];
+		private double[] utilities = new double[16];
+		private int[] firstChild = new int[16];
+		private int[] nextSibling = new int[16];
+		private byte[] distance = new byte[16];
+		private int size;
+
+		Band(double min) {
+			this.min = min;
+		}
+
+		void add(BidIndex index, long code, double utility) {
+			if (size == codes.length) grow();
+			codes[size] = code;
+			utilities[size] = utility;
+			firstChild[size] = -1;
+			nextSibling[size] = -1;
+
+			// Walk down to the first node without a child at our distance, and hang off it
+			for (int node = 0; size > 0; ) {
+				int d = index.distance(codes[node], code);
+				int child = firstChild[node];
+				while (child >= 0 && distance[child] != d) child = nextSibling[child];
+
+				if (child < 0) {
+					distance[size] = (byte) d;
+					nextSibling[size] = firstChild[node];
+					firstChild[node] = size;
+					break;
+				}
+				node = child;
+			}
+			++size;
+		}
+
+		private void grow() {
+			int capacity = codes.length * 2;
+			codes = Arrays.copyOf(codes, capacity);
+			utilities = Arrays.copyOf(utilities, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			nextSibling = Arrays.copyOf(nextSibling, capacity);
+			distance = Arrays.copyOf(distance, capacity);
+		}
+	}
+
+	/**
+	 * A candidate answer, the worst one sits at the top of the queue
+	 */
+	private static final class Match implements Comparable<Match> {
+		final long code;
+		final int distance;
+		final double utility;
+
+		Match(long code, int distance, double utility) {
+			this.code = code;
+			this.distance = distance;
+			this.utility = utility;
+		}
+
+		@Override
+		public int compareTo(Match other) {
+			return distance != other.distance ? Integer.compare(other.distance, distance) : Double.compare(utility, other.utility);
+		}
+	}
+
+	private BidIndex(AdditiveUtilitySpace space) throws Exception {
+		domain = space.getDomain();
+		List<Issue> list = domain.getIssues();
+		issues = new IssueDiscrete[list.size()];
+		double[][] scores = new double[issues.length][];
+
+		// Fields are wide enough that all ones is never a real ordinal, that's what unknown values encode to
+		int most = 1;
+		long outcomes = 1;
+		for (int i = 0; i < issues.length; i++) {
+			if (!(list.get(i) instanceof IssueDiscrete)) throw new IllegalArgumentException("Only discrete issues can be indexed");
+			issues[i] = (IssueDiscrete) list.get(i);
+			most = Math.max(most, issues[i].getNumberOfValues());
+			outcomes *= issues[i].getNumberOfValues();
+			if (outcomes > MAX_OUTCOMES) throw new IllegalArgumentException("More than " + MAX_OUTCOMES + " outcomes");
+
+			EvaluatorDiscrete evaluator = (EvaluatorDiscrete) space.getEvaluator(issues[i].getNumber());
+			double weight = space.getWeight(issues[i].getNumber());
+			scores[i] = new double[issues[i].getNumberOfValues()];
+			for (int j = 0; j < scores[i].length; j++) scores[i][j] = weight * evaluator.getEvaluation(issues[i].getValue(j));
+		}
+		width = 32 - Integer.numberOfLeadingZeros(most);
+		if ((long) width * issues.length > 64) throw new IllegalArgumentException("Bids don't fit in 64 bits");
+
+		long mask = 0;
+		for (int i = 0; i < issues.length; i++) mask |= 1L << (i * width);
+		low = mask;
+
+		for (int b = 0; b < BANDS; b++) bands[b] = new Band((double) b / BANDS);
+
+		// Count through every outcome, the ordinals are a mixed radix number
+		int[] ordinals = new int[issues.length];
+		for (long n = 0; n < outcomes; n++) {
+			long code = 0;
+			double utility = 0;
+			for (int i = 0; i < issues.length; i++) {
+				code |= (long) ordinals[i] << (i * width);
+				utility += scores[i][ordinals[i]];
+			}
+			bands[band(utility)].add(this, code, utility);
+
+			for (int i = 0; i < issues.length && ++ordinals[i] == issues[i].getNumberOfValues(); i++) ordinals[i] = 0;
+		}
+		size = (int) outcomes;
+	}
+
+	/**
+	 * Index a space, throws if it can't be indexed
+	 */
+	public static BidIndex build(AdditiveUtilitySpace space) throws Exception {
+		return new BidIndex(space);
+	}
+
+	/**
+	 * The shared index for a profile, or null if it can't be indexed
+	 */
+	public static BidIndex shared(AbstractUtilitySpace space) {
+		if (!(space instanceof AdditiveUtilitySpace)) return null;
+		try {
+			return CACHE.get(ProfileCache.fingerprint(space), () -> {
+				try {
+					return build((AdditiveUtilitySpace) space);
+				} catch (IllegalArgumentException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static int band(double utility) {
+		return Math.max(0, Math.min(BANDS - 1, (int) (utility * BANDS)));
+	}
+
+	/**
+	 * Number of issues that differ between two codes
+	 */
+	int distance(long a, long b) {
+		long x = a ^ b;
+		long spread = x;
+		for (int s = 1; s < width; s++) spread |= x >>> s;
+		return Long.bitCount(spread & low);
+	}
+
+	public long encode(Bid bid) {
+		long code = 0;
+		for (int i = 0; i < issues.length; i++) {
+			Value value = bid.getValue(issues[i].getNumber());
+			int ordinal = value instanceof ValueDiscrete ? issues[i].getValueIndex((ValueDiscrete) value) : -1;
+			code |= (ordinal >= 0 ? ordinal : (1L << width) - 1) << (i * width);
+		}
+		return code;
+	}
+
+	public Bid decode(long code) {
+		HashMap<Integer, Value> values = new HashMap<>();
+		long field = (1L << width) - 1;
+		for (int i = 0; i < issues.length; i++) values.put(issues[i].getNumber(), issues[i].getValue((int) ((code >>> (i * width)) & field)));
+		return new Bid(domain, values);
+	}
+
+	/**
+	 * Up to k bids closest to the target with our utility at least minUtility, closest first and better for us
+	 * first among equally close ones
+	 */
+	public List<Bid> nearest(Bid target, int k, double minUtility) {
+		if (k <= 0) return Collections.emptyList();
+		long code = encode(target);
+		PriorityQueue<Match> worst = new PriorityQueue<>();
+		int[] stack = new int[64];
+
+		for (int b = BANDS - 1; b >= 0 && bands[b].min + 1.0 / BANDS > minUtility; b--) {
+			Band band = bands[b];
+			if (band.size == 0) continue;
+
+			int top = 0;
+			stack[top++] = 0;
+			while (top > 0) {
+				int node = stack[--top];
+				int d = distance(band.codes[node], code);
+				int radius = worst.size() < k ? issues.length : worst.peek().distance;
+
+				if (d <= radius && band.utilities[node] >= minUtility) {
+					Match match = new Match(band.codes[node], d, band.utilities[node]);
+					if (worst.size() < k) worst.add(match);
+					else if (match.compareTo(worst.peek()) > 0) {
+						worst.poll();
+						worst.add(match);
+					}
+					radius = worst.size() < k ? issues.length : worst.peek().distance;
+				}
+
+				// Only subtrees within the radius by the triangle inequality can hold anything closer
+				for (int child = band.firstChild[node]; child >= 0; child = band.nextSibling[child]) {
+					if (Math.abs(band.distance[child] - d) <= radius) {
+						if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+						stack[top++] = child;
+					}
+				}
+			}
+		}
+
+		List<Match> matches = new ArrayList<>(worst);
+		Collections.sort(matches, Collections.reverseOrder());
+		List<Bid> bids = new ArrayList<>();
+		for (Match match : matches) bids.add(decode(match.code));
+		return bids;
+	}
+
+	/**
+	 * Number of outcomes indexed
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,244 @@
+package group23;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Genetic algorithm over bids, the roulette wheel grown up to a whole population.
+ *
+ * Bids are encoded as one value ordinal per issue. Each generation keeps the best few, then breeds the rest by
+ * tournament selection, uniform crossover across issues and mutation that redraws an issue from the
+ * frequency-weighted wheel. Fitness ranks every bid that meets our target above every bid that doesn't, and among
+ * those by how much the opponent model thinks they'll like it.
+ *
+ * Fitness is a sum over the issues, so a generation of a few dozen bids is evaluated in microseconds and isn't worth
+ * splitting across threads. Instead the search is split into islands, whole populations evolved on their own threads
+ * (the first on the caller's, the rest on the common pool) that only meet every MIGRATION generations, when each
+ * island's best bid moves on to the next. Each thread then gets a few milliseconds of work per handover. Evolving
+ * uses at most as many islands as there are processors.
+ */
+public class BidOptimizer {
+	private static final int ELITE = 2;
+	/**
+	 * Generations each island evolves alone before the best bids migrate
+	 */
+	private static final int MIGRATION = 5;
+	/**
+	 * Generations without improvement before an island gives up
+	 */
+	private static final int STALE = 20;
+
+	private final double[][] ours;
+	private final double[][] theirs;
+	private final double[][] wheel;
+	private final int size;
+	private int generations;
+
+	/**
+	 * @param ours our utility contribution of each value of each issue, so a bid is worth the sum
+	 * @param theirs how much the opponent likes each value of each issue, 0 to 1
+	 * @param wheel weight of each value of each issue when mutating, need not sum to 1
+	 * @param size population size
+	 */
+	public BidOptimizer(double[][] ours, double[][] theirs, double[][] wheel, int size) {
+		if (ours.length != theirs.length || ours.length != wheel.length) throw new IllegalArgumentException("Tables need one row per issue");
+		if (size <= ELITE) throw new IllegalArgumentException("Population must be bigger than " + ELITE);
+		this.ours = ours;
+		this.theirs = theirs;
+		this.size = size;
+
+		// Cumulative, so a draw is a binary search
+		this.wheel = new double[wheel.length][];
+		for (int i = 0; i < wheel.length; i++) {
+			this.wheel[i] = new double[wheel[i].length];
+			double total = 0;
+			for (int j = 0; j < wheel[i].length; j++) this.wheel[i][j] = total += Math.max(0, wheel[i][j]);
+		}
+	}
+
+	public double utility(int[] genes) {
+		double utility = 0;
+		for (int i = 0; i < genes.length; i++) utility += ours[i][genes[i]];
+		return utility;
+	}
+
+	public double opponent(int[] genes) {
+		double score = 0;
+		for (int i = 0; i < genes.length; i++) score += theirs[i][genes[i]];
+		return genes.length > 0 ? score / genes.length : 0;
+	}
+
+	/**
+	 * Above 1 when we'd offer it, by how much they should like it. Below 0 when it's short of our target, by how far.
+	 */
+	public double fitness(int[] genes, double target) {
+		double utility = utility(genes);
+		return utility >= target ? 1 + opponent(genes) : utility - target;
+	}
+
+	/**
+	 * Evolve from the seeds for up to budgetNanos, or until nothing has improved for a while, and return the fittest
+	 */
+	public int[] evolve(int[][] seeds, double target, long budgetNanos, SplittableRandom random) {
+		return evolve(seeds, target, budgetNanos, 1, random);
+	}
+
+	/**
+	 * Evolve as many islands as asked for, up to the processors we have, and return the fittest of all of them
+	 */
+	public int[] evolve(int[][] seeds, double target, long budgetNanos, int islands, SplittableRandom random) {
+		long deadline = System.nanoTime() + budgetNanos;
+		islands = Math.max(1, Math.min(islands, Runtime.getRuntime().availableProcessors()));
+
+		Island[] archipelago = new Island[islands];
+		for (int i = 0; i < islands; i++) archipelago[i] = new Island(seeds, target, i == 0 ? random : random.split());
+
+		while (System.nanoTime() < deadline) {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (int i = 1; i < islands; i++) {
+				Island island = archipelago[i];
+				futures.add(CompletableFuture.runAsync(() -> island.evolve(MIGRATION, deadline)));
+			}
+			archipelago[0].evolve(MIGRATION, deadline);
+			for (CompletableFuture<Void> future : futures) future.join();
+
+			boolean stale = true;
+			for (Island island : archipelago) stale &= island.stale >= STALE;
+			if (stale) break;
+
+			// Each island's best replaces the last bred bid of the next one
+			for (int i = 0; islands > 1 && i < islands; i++) {
+				Island to = archipelago[(i + 1) % islands];
+				System.arraycopy(archipelago[i].best, 0, to.population[size - 1], 0, ours.length);
+			}
+		}
+
+		Island fittest = archipelago[0];
+		generations = 0;
+		for (Island island : archipelago) {
+			generations += island.generations;
+			if (island.bestFitness > fittest.bestFitness) fittest = island;
+		}
+		return fittest.best;
+	}
+
+	/**
+	 * One population, only ever evolved by one thread at a time
+	 */
+	private final class Island {
+		final double target;
+		final SplittableRandom random;
+		int[][] population = new int[size][];
+		int[][] next = new int[size][ours.length];
+		final double[] fitness = new double[size];
+		int[] best;
+		double bestFitness = Double.NEGATIVE_INFINITY;
+		int stale;
+		int generations;
+
+		/**
+		 * Start from the seeds and mutants of them
+		 */
+		Island(int[][] seeds, double target, SplittableRandom random) {
+			this.target = target;
+			this.random = random;
+			int issues = ours.length;
+			for (int p = 0; p < size; p++) {
+				population[p] = seeds[p % seeds.length].clone();
+				if (p >= seeds.length) mutate(population[p], 1.0 / Math.max(1, issues) * 2, random);
+			}
+			best = population[0].clone();
+		}
+
+		/**
+		 * Up to count more generations, stopping early at the deadline or once it's stale
+		 */
+		void evolve(int count, long deadline) {
+			int issues = ours.length;
+			for (int g = 0; g < count && stale < STALE && System.nanoTime() < deadline; g++) {
+				evaluate(population, fitness, target);
+				++generations;
+
+				// Remember the best we've ever seen, elitism keeps it in the population anyway
+				int[] elite = top(fitness, ELITE);
+				if (fitness[elite[0]] > bestFitness) {
+					bestFitness = fitness[elite[0]];
+					best = population[elite[0]].clone();
+					stale = 0;
+				} else {
+					++stale;
+				}
+
+				for (int e = 0; e < ELITE; e++) System.arraycopy(population[elite[e]], 0, next[e], 0, issues);
+				for (int p = ELITE; p < size; p++) {
+					int[] mother = population[select(fitness, random)], father = population[select(fitness, random)];
+					for (int i = 0; i < issues; i++) next[p][i] = random.nextBoolean() ? mother[i] : father[i];
+					mutate(next[p], 1.0 / Math.max(1, issues), random);
+				}
+
+				int[][] swap = population;
+				population = next;
+				next = swap;
+			}
+		}
+	}
+
+	/**
+	 * How many generations the last evolve ran for, over all islands
+	 */
+	public int getGenerations() {
+		return generations;
+	}
+
+	private void evaluate(int[][] population, double[] fitness, double target) {
+		for (int p = 0; p < population.length; p++) fitness[p] = fitness(population[p], target);
+	}
+
+	/**
+	 * Indices of the n fittest, fittest first
+	 */
+	private static int[] top(double[] fitness, int n) {
+		int[] top = new int[n];
+		Arrays.fill(top, -1);
+		for (int p = 0; p < fitness.length; p++) {
+			for (int t = 0; t < n; t++) {
+				if (top[t] < 0 || fitness[p] > fitness[top[t]]) {
+					System.arraycopy(top, t, top, t + 1, n - t - 1);
+					top[t] = p;
+					break;
+				}
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Binary tournament
+	 */
+	private static int select(double[] fitness, SplittableRandom random) {
+		int a = random.nextInt(fitness.length), b = random.nextInt(fitness.length);
+		return fitness[a] >= fitness[b] ? a : b;
+	}
+
+	/**
+	 * Redraw each issue from the wheel with the given probability
+	 */
+	private void mutate(int[] genes, double rate, SplittableRandom random) {
+		for (int i = 0; i < genes.length; i++) {
+			if (random.nextDouble() >= rate) continue;
+
+			double[] cumulative = wheel[i];
+			double total = cumulative[cumulative.length - 1];
+			if (total <= 0) {
+				genes[i] = random.nextInt(cumulative.length);
+				continue;
+			}
+
+			int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+			genes[i] = Math.min(cumulative.length - 1, index >= 0 ? index + 1 : -index - 1);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package group23;
+
+import negotiator.Bid;
+import negotiator.Domain;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.IssueInteger;
+import negotiator.issue.Value;
+import negotiator.issue.ValueInteger;
+import negotiator.utility.AbstractUtilitySpace;
+import negotiator.utility.AdditiveUtilitySpace;
+import negotiator.utility.EvaluatorDiscrete;
+import negotiator.utility.EvaluatorInteger;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Draws random bids with at least a given utility without trying and throwing away, so it costs the same however
+ * few bids clear the bar.
+ *
+ * What every value adds to the utility is rounded down to 1/RESOLUTION, and a table counts, for every issue and
+ * every total, how many ways the issues after it can make up at least that total. A bid is then drawn one issue at
+ * a time, each value chosen in proportion to the ways the rest can still reach the threshold. Rounding down means
+ * every bid drawn really is good enough; bids within a rounding step (issues / RESOLUTION) above the threshold can
+ * be missed. Values can be given weights to draw in proportion to instead of uniformly.
+ */
+public class BidSampler {
+	/**
+	 * Steps the utility is counted in
+	 */
+	public static final int RESOLUTION = 4096;
+	/**
+	 * Most values of an integer issue we'll list
+	 */
+	private static final int MAX_VALUES = 10_000;
+
+	private final Domain domain;
+	private final int[] numbers;
+	private final Value[][] values;
+	/**
+	 * What every value adds, in steps rounded down
+	 */
+	private final int[][] steps;
+	private final double[][] weights;
+	/**
+	 * atLeast[i][s]: weighted number of ways issues i onwards add up to at least s steps
+	 */
+	private final double[][] atLeast;
+	private final Bid maxBid;
+	private final double maxUtility;
+
+	/**
+	 * Uniform over all good enough bids
+	 */
+	public BidSampler(AdditiveUtilitySpace space) throws Exception {
+		this(space, null);
+	}
+
+	/**
+	 * In proportion to the product of the weights of the values, valueWeights[i][k] for the k-th value of the i-th
+	 * issue (in domain order), or uniform if null
+	 */
+	public BidSampler(AdditiveUtilitySpace space, double[][] valueWeights) throws Exception {
+		domain = space.getDomain();
+		List<Issue> issues = domain.getIssues();
+		int n = issues.size();
+		numbers = new int[n];
+		values = new Value[n][];
+		double[][] utilities = new double[n][];
+		for (int i = 0; i < n; i++) {
+			Issue issue = issues.get(i);
+			numbers[i] = issue.getNumber();
+			double weight = space.getWeight(numbers[i]);
+			if (issue instanceof IssueDiscrete) {
+				IssueDiscrete discrete = (IssueDiscrete) issue;
+				EvaluatorDiscrete evaluator = (EvaluatorDiscrete) space.getEvaluator(numbers[i]);
+				values[i] = new Value[discrete.getNumberOfValues()];
+				utilities[i] = new double[values[i].length];
+				for (int k = 0; k < values[i].length; k++) {
+					values[i][k] = discrete.getValue(k);
+					utilities[i][k] = weight * evaluator.getEvaluation(discrete.getValue(k));
+				}
+			} else if (issue instanceof IssueInteger) {
+				IssueInteger integer = (IssueInteger) issue;
+				EvaluatorInteger evaluator = (EvaluatorInteger) space.getEvaluator(numbers[i]);
+				int count = integer.getUpperBound() - integer.getLowerBound() + 1;
+				if (count > MAX_VALUES) throw new IllegalArgumentException("Too many values on issue " + issue.getName());
+				values[i] = new Value[count];
+				utilities[i] = new double[count];
+				for (int k = 0; k < count; k++) {
+					values[i][k] = new ValueInteger(integer.getLowerBound() + k);
+					utilities[i][k] = weight * evaluator.getEvaluation(integer.getLowerBound() + k);
+				}
+			} else {
+				throw new IllegalArgumentException("Can't sample issue " + issue.getName() + " of type " + issue.getClass().getSimpleName());
+			}
+		}
+
+		// Round down into steps, and remember the best value of each issue
+		steps = new int[n][];
+		weights = new double[n][];
+		int total = 0;
+		HashMap<Integer, Value> best = new HashMap<>();
+		double max = 0;
+		for (int i = 0; i < n; i++) {
+			steps[i] = new int[values[i].length];
+			weights[i] = new double[values[i].length];
+			int most = 0, top = 0;
+			for (int k = 0; k < values[i].length; k++) {
+				steps[i][k] = (int) Math.floor(Math.max(0, utilities[i][k]) * RESOLUTION);
+				weights[i][k] = valueWeights == null ? 1 : valueWeights[i][k];
+				most = Math.max(most, steps[i][k]);
+				if (utilities[i][k] > utilities[i][top]) top = k;
+			}
+			total += most;
+			best.put(numbers[i], values[i][top]);
+			max += utilities[i][top];
+		}
+		maxBid = new Bid(domain, best);
+		maxUtility = max;
+
+		// Count backwards from the last issue, exactly[s] then summed from the top into at least
+		atLeast = new double[n + 1][];
+		atLeast[n] = new double[total + 2];
+		atLeast[n][0] = 1;
+		double[] exactly = new double[total + 1];
+		double[] next = new double[total + 1];
+		exactly[0] = 1;
+		for (int i = n - 1; i >= 0; i--) {
+			Arrays.fill(next, 0);
+			for (int s = 0; s <= total; s++) {
+				if (exactly[s] == 0) continue;
+				for (int k = 0; k < steps[i].length; k++) {
+					if (s + steps[i][k] <= total) next[s + steps[i][k]] += weights[i][k] * exactly[s];
+				}
+			}
+			double[] swap = exactly;
+			exactly = next;
+			next = swap;
+
+			atLeast[i] = new double[total + 2];
+			for (int s = total; s >= 0; s--) atLeast[i][s] = atLeast[i][s + 1] + exactly[s];
+		}
+	}
+
+	/**
+	 * A sampler for the space, or null if it isn't additive or has issues we can't list
+	 */
+	public static BidSampler create(AbstractUtilitySpace space) {
+		if (!(space instanceof AdditiveUtilitySpace)) return null;
+		try {
+			return new BidSampler((AdditiveUtilitySpace) space);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A random bid worth at least the threshold to us. The best bid if no other is known to clear it, null if even
+	 * that doesn't.
+	 */
+	public Bid sample(double threshold, Random random) {
+		int need = (int) Math.ceil(Math.max(0, threshold) * RESOLUTION);
+		if (need >= atLeast[0].length - 1 || atLeast[0][need] <= 0) return maxUtility >= threshold ? maxBid : null;
+
+		HashMap<Integer, Value> bid = new HashMap<>();
+		for (int i = 0; i < numbers.length; i++) {
+			double[] rest = atLeast[i + 1];
+			double total = 0;
+			for (int k = 0; k < steps[i].length; k++) total += weights[i][k] * ways(rest, need - steps[i][k]);
+
+			// Spin for a value, the last one with any ways left catches rounding
+			double spin = random.nextDouble() * total;
+			int chosen = -1;
+			for (int k = 0; k < steps[i].length; k++) {
+				double ways = weights[i][k] * ways(rest, need - steps[i][k]);
+				if (ways <= 0) continue;
+				chosen = k;
+				spin -= ways;
+				if (spin < 0) break;
+			}
+			bid.put(numbers[i], values[i][chosen]);
+			need -= steps[i][chosen];
+		}
+		return new Bid(domain, bid);
+	}
+
+	private static double ways(double[] atLeast, int need) {
+		return need <= 0 ? atLeast[0] : need < atLeast.length ? atLeast[need] : 0;
+	}
+
+	public Bid getMaxBid() {
+		return maxBid;
+	}
+
+	public double getMaxUtility() {
+		return maxUtility;
+	}
+}
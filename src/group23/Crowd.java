@@ -0,0 +1,153 @@
+package group23;
+
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.issue.Value;
+import negotiator.issue.ValueInteger;
+import negotiator.issue.ValueReal;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * What Agent23 keeps about the other parties when there are too many to keep an offer from each.
+ *
+ * The integer and real rules only need, per issue, the average of every party's first offer and the first offer
+ * nearest our own value, so those are kept as running sums and a running nearest as each party is first heard
+ * from, and a turn reads them in O(issues) however many parties there are. Every party is one map entry. Only a
+ * random sample of at most detail parties (reservoir sampling, so a fair sample however many turn up) is folded
+ * into the frequency table in detail, the rest cost a map lookup per offer. A party pushed out of the sample is
+ * handed to dropped so its offers can come out of the frequency table again, otherwise the table would lean towards
+ * whoever was sampled early. Not thread safe.
+ */
+public class Crowd {
+	private final AgentID self;
+	private final int detail;
+	private final SplittableRandom random;
+	private final Consumer<AgentID> dropped;
+	/**
+	 * Slot of each party we have heard from in the sample, or -1 if it isn't in it. Doesn't include us.
+	 */
+	private final Map<AgentID, Integer> parties = new HashMap<>();
+	private final AgentID[] sample;
+	/**
+	 * Integer and real issues by id
+	 */
+	private final Map<Integer, Numbers> numbers = new HashMap<>();
+	/**
+	 * What the integer and real rules settle on per issue, null once a new party has changed it
+	 */
+	private Map<Integer, Double> picks;
+
+	/**
+	 * Running statistics of the first offers on one integer or real issue
+	 */
+	private static final class Numbers {
+		final boolean integral;
+		final double ours;
+		double sum;
+		int count;
+		/**
+		 * The other parties' value nearest ours so far, NaN until we've heard from one
+		 */
+		double nearest = Double.NaN;
+
+		Numbers(boolean integral, double ours) {
+			this.integral = integral;
+			this.ours = ours;
+		}
+	}
+
+	/**
+	 * Statistics for the integer and real issues of our max bid, modelling at most detail other parties in detail and
+	 * telling dropped about each party that leaves the sample
+	 */
+	public Crowd(AgentID self, Bid ours, int detail, SplittableRandom random, Consumer<AgentID> dropped) {
+		if (detail < 1) throw new IllegalArgumentException("Need to model at least one party in detail");
+		this.self = self;
+		this.detail = detail;
+		this.random = random;
+		this.dropped = dropped;
+		sample = new AgentID[detail];
+		ours.getValues().forEach((Integer id, Value value) -> {
+			Double number = number(value);
+			if (number == null) return;
+			Numbers issue = new Numbers(value instanceof ValueInteger, number);
+			issue.sum = number;
+			issue.count = 1;
+			numbers.put(id, issue);
+		});
+	}
+
+	private static Double number(Value value) {
+		if (value instanceof ValueInteger) return (double) ((ValueInteger) value).getValue();
+		if (value instanceof ValueReal) return ((ValueReal) value).getValue();
+		return null;
+	}
+
+	/**
+	 * Note an offer. True if it should go into the frequency table: ours always do, a party's do while it is in the
+	 * sample.
+	 */
+	public boolean add(AgentID sender, Bid bid) {
+		if (self.equals(sender)) return true;
+
+		Integer slot = parties.get(sender);
+		if (slot != null) return slot >= 0;
+
+		// First time we hear from them, count their offer in the statistics
+		numbers.forEach((Integer id, Numbers issue) -> {
+			Double number = number(bid.getValue(id));
+			if (number == null) return;
+			issue.sum += number;
+			issue.count++;
+			if (Double.isNaN(issue.nearest) || Math.abs(number - issue.ours) < Math.abs(issue.nearest - issue.ours)) issue.nearest = number;
+		});
+		picks = null;
+
+		// And maybe in the sample, replacing someone we've already got
+		int seen = parties.size();
+		slot = seen < detail ? seen : random.nextInt(seen + 1);
+		if (slot < detail) {
+			if (sample[slot] != null) {
+				parties.put(sample[slot], -1);
+				dropped.accept(sample[slot]);
+			}
+			sample[slot] = sender;
+		} else {
+			slot = -1;
+		}
+		parties.put(sender, slot);
+		return slot >= 0;
+	}
+
+	/**
+	 * Per integer and real issue, the average of everyone's first offer unless one of the other parties started
+	 * nearer our own value, then theirs. Read only, and the same map until a new party turns up.
+	 */
+	public Map<Integer, Double> picks() {
+		if (picks != null) return picks;
+
+		Map<Integer, Double> picks = new HashMap<>();
+		numbers.forEach((Integer id, Numbers issue) -> {
+			double best = issue.integral ? (double) ((long) issue.sum / issue.count) : issue.sum / issue.count; // Start with the average
+			if (!Double.isNaN(issue.nearest) && Math.abs(issue.nearest - issue.ours) < Math.abs(best - issue.ours)) best = issue.nearest;
+			picks.put(id, best);
+		});
+		return this.picks = Collections.unmodifiableMap(picks);
+	}
+
+	/**
+	 * Parties heard from, not counting us
+	 */
+	public int size() {
+		return parties.size();
+	}
+
+	/**
+	 * Parties whose offers go into the frequency table, not counting us
+	 */
+	public int getDetailed() {
+		return Math.min(detail, parties.size());
+	}
+}
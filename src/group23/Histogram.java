@@ -0,0 +1,101 @@
+package group23;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative longs (usually nanoseconds), HDR style: log-linear buckets so every value is
+ * kept to about 3% precision in a fixed 15KB whatever its magnitude. Safe to record into from many threads at once,
+ * the count and sum are striped so every agent in the JVM recording at once doesn't fight over one counter.
+ */
+public class Histogram {
+	/**
+	 * 2^SUB_BITS linear sub-buckets per power of two
+	 */
+	private static final int SUB_BITS = 6;
+	private static final int SUB = 1 << SUB_BITS;
+	private static final int HALF = SUB >> 1;
+	private static final int BUCKETS = SUB + (64 - SUB_BITS) * HALF;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Bucket for a value, exact below SUB then SUB/2 buckets per power of two
+	 */
+	static int index(long value) {
+		if (value < SUB) return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+		return SUB + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+	}
+
+	/**
+	 * Smallest value that lands in a bucket
+	 */
+	static long lowest(int index) {
+		if (index < SUB) return index;
+		int shift = (index - SUB) / HALF + 1;
+		return (long) ((index - SUB) % HALF + HALF) << shift;
+	}
+
+	public void record(long value) {
+		if (value < 0) value = 0;
+		counts.incrementAndGet(index(value));
+		count.increment();
+		sum.add(value);
+		// Only write when it's a new max, which soon stops happening
+		long seen = max.get();
+		while (value > seen && !max.compareAndSet(seen, value)) seen = max.get();
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * Value at or below which a fraction p of the recorded values fall, to bucket precision
+	 */
+	public long getPercentile(double p) {
+		long n = count.sum();
+		if (n == 0) return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(p * n)), seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) return Math.min(lowest(i), max.get());
+		}
+		return max.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+	/**
+	 * Summary in the given unit, e.g. 1000 for micros when recording nanos
+	 */
+	public String toString(double unit) {
+		return String.format("n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f p999=%.1f max=%.1f", getCount(), getMean() / unit,
+				getPercentile(0.5) / unit, getPercentile(0.9) / unit, getPercentile(0.99) / unit, getPercentile(0.999) / unit, getMax() / unit);
+	}
+
+	@Override
+	public String toString() {
+		return toString(1);
+	}
+}
@@ -0,0 +1,44 @@
+package group23;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for receiveMessage folding an offer into the frequency tables, from Trace.update(), see
+ * PhaseEvent.
+ */
+@Name("group23.ModelUpdate")
+@Label("Agent23 Model Update")
+@Category({"Agent23", "Model"})
+@Description("Agent23 updating its opponent model from a received offer")
+@StackTrace(false)
+class ModelUpdateEvent extends jdk.jfr.Event implements Trace.Update {
+	@Label("Agent")
+	String agent;
+	@Label("Sender")
+	String sender;
+	@Label("Round")
+	int round;
+	@Label("Time")
+	@Description("Negotiation time from 0 to 1")
+	double time;
+	@Label("Issues")
+	@Description("Discrete issues of the offer counted into the frequency table, 0 if it wasn't")
+	int issues;
+
+	@Override
+	public void finish(Agent23 agent, Object sender, int issues) {
+		end();
+		if (shouldCommit()) {
+			this.agent = agent.getDescription();
+			this.sender = String.valueOf(sender);
+			this.round = agent.round;
+			this.time = agent.getTimeLine() != null ? agent.getTimeLine().getTime() : 0;
+			this.issues = issues;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package group23;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Folds updates into an opponent model on a background thread and publishes immutable snapshots of it.
+ *
+ * Updates go through a single-producer single-consumer ring, so only the protocol thread may submit and only the
+ * worker touches the model. After every batch (or every BATCH updates in a flood) the worker builds a snapshot and
+ * publishes it with a volatile write, readers never lock and never see a model half way through an update. A
+ * snapshot can be a few updates behind whatever is still in the ring.
+ */
+public class ModelUpdater<S> implements AutoCloseable {
+	public static final String PROPERTY = "group23.background";
+	private static final int CAPACITY = 1024;
+	private static final int MASK = CAPACITY - 1;
+	/**
+	 * Most updates folded in before a snapshot is published anyway
+	 */
+	private static final int BATCH = 64;
+
+	private final Runnable[] ring = new Runnable[CAPACITY];
+	/**
+	 * Next slot to take, written by the worker only
+	 */
+	private final AtomicLong head = new AtomicLong();
+	/**
+	 * Next slot to fill, written by the producer only
+	 */
+	private final AtomicLong tail = new AtomicLong();
+	private final Supplier<S> snapshotter;
+	private final Thread worker;
+	private final AtomicLong failures = new AtomicLong();
+	private volatile S snapshot;
+	private volatile boolean sleeping;
+	private volatile boolean closed;
+
+	/**
+	 * Takes the first snapshot now, on the calling thread, then leaves the model to the worker
+	 */
+	public ModelUpdater(String name, Supplier<S> snapshotter) {
+		this.snapshotter = snapshotter;
+		this.snapshot = snapshotter.get();
+		worker = new Thread(this::work, "group23-model-" + name);
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Are background updates switched on, with -Dgroup23.background=true?
+	 */
+	public static boolean enabled() {
+		return Boolean.getBoolean(PROPERTY);
+	}
+
+	/**
+	 * Queue an update, only ever from the one producer thread. Waits for room if the worker is a whole ring behind.
+	 */
+	public void submit(Runnable update) {
+		long t = tail.get();
+		while (t - head.get() >= CAPACITY) {
+			LockSupport.unpark(worker);
+			Thread.yield();
+		}
+		ring[(int) t & MASK] = update;
+		// A full volatile write, so it can't be reordered after reading sleeping: either we see the worker asleep or
+		// it sees the new tail when it checks again
+		tail.set(t + 1);
+		if (sleeping) LockSupport.unpark(worker);
+	}
+
+	/**
+	 * The latest published model
+	 */
+	public S snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Updates that threw
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	private void work() {
+		int folded = 0;
+		while (!closed) {
+			long h = head.get();
+			if (h == tail.get()) {
+				if (folded > 0) {
+					publish();
+					folded = 0;
+				}
+
+				// Check again after saying we're asleep, so a submit in between still wakes us
+				sleeping = true;
+				if (head.get() == tail.get() && !closed) LockSupport.park(this);
+				sleeping = false;
+				continue;
+			}
+
+			Runnable update = ring[(int) h & MASK];
+			ring[(int) h & MASK] = null;
+			head.lazySet(h + 1);
+			try {
+				update.run();
+			} catch (Throwable throwable) {
+				failures.incrementAndGet();
+			}
+			if (++folded >= BATCH) {
+				publish();
+				folded = 0;
+			}
+		}
+	}
+
+	private void publish() {
+		try {
+			snapshot = snapshotter.get();
+		} catch (Throwable throwable) {
+			failures.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Stop the worker, updates still in the ring are dropped
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(worker);
+	}
+}
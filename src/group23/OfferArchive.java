@@ -0,0 +1,227 @@
+package group23;
+
+import negotiator.Bid;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.Value;
+import negotiator.issue.ValueDiscrete;
+import negotiator.utility.AbstractUtilitySpace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every offer an opponent class has made against one of our profiles, across sessions and JVMs.
+ *
+ * One append-only file per opponent class and profile, in the directory given by -Dgroup23.archive. After a
+ * 16 byte header every record is the same size: the time of the offer as a fraction of 65535, then one byte per
+ * issue holding the value's ordinal. Offers are buffered during a session and appended under a file lock when
+ * flushed, so parallel sessions and tournament JVMs can share the directory. File locks belong to the whole JVM,
+ * so sessions in one JVM take turns on a file through a lock of our own first. Reading maps the file and walks the
+ * records in place, nothing is deserialised. A torn record at the end (a crash mid-append) is ignored.
+ *
+ * Only domains where every issue is discrete with fewer than 256 values can be archived.
+ */
+public final class OfferArchive implements Closeable {
+	public static final String PROPERTY = "group23.archive";
+	private static final int MAGIC = 0x47323341; // G23A
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+	private static final int BUFFER = 64 * 1024;
+	/**
+	 * One per archive file the JVM has flushed, by canonical path
+	 */
+	private static final ConcurrentHashMap<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+	private final File file;
+	private final IssueDiscrete[] issues;
+	private final int recordSize;
+	private final ByteBuffer pending;
+
+	private OfferArchive(File file, IssueDiscrete[] issues) {
+		this.file = file;
+		this.issues = issues;
+		this.recordSize = 2 + issues.length;
+		this.pending = ByteBuffer.allocate(Math.max(recordSize, BUFFER / recordSize * recordSize));
+	}
+
+	/**
+	 * The archive directory, or null if archiving is off
+	 */
+	public static File directory() {
+		String directory = System.getProperty(PROPERTY);
+		return directory != null && !directory.isEmpty() ? new File(directory) : null;
+	}
+
+	/**
+	 * The archive of an opponent class against a profile, or null if the domain or profile can't be archived
+	 */
+	public static OfferArchive open(File directory, String opponent, AbstractUtilitySpace space) throws IOException {
+		List<Issue> list = space.getDomain().getIssues();
+		IssueDiscrete[] issues = new IssueDiscrete[list.size()];
+		for (int i = 0; i < issues.length; i++) {
+			if (!(list.get(i) instanceof IssueDiscrete) || ((IssueDiscrete) list.get(i)).getNumberOfValues() > 255) return null;
+			issues[i] = (IssueDiscrete) list.get(i);
+		}
+
+		String fingerprint = ProfileCache.fingerprint(space);
+		if (fingerprint == null) return null;
+
+		if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Can't create " + directory);
+		String name = opponent.replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + fingerprint.substring(0, 16) + ".offers";
+		return new OfferArchive(new File(directory, name), issues);
+	}
+
+	/**
+	 * The opponent class from a party id, Genius names parties like ClassName@index
+	 */
+	public static String opponent(String partyName) {
+		int at = partyName.indexOf('@');
+		return at > 0 ? partyName.substring(0, at) : partyName;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Buffer an offer made at time t, written out on flush or when the buffer fills
+	 */
+	public void append(Bid bid, double time) throws IOException {
+		if (pending.remaining() < recordSize) flush();
+		pending.putChar((char) Math.round(Math.max(0, Math.min(1, time)) * 65535));
+		for (IssueDiscrete issue : issues) {
+			Value value = bid.getValue(issue.getNumber());
+			int ordinal = value instanceof ValueDiscrete ? issue.getValueIndex((ValueDiscrete) value) : -1;
+			pending.put((byte) (ordinal >= 0 ? ordinal : 255));
+		}
+	}
+
+	/**
+	 * Append everything buffered to the file. If that fails the offers stay buffered for the next try.
+	 */
+	public void flush() throws IOException {
+		int buffered = pending.position();
+		if (buffered == 0) return;
+		pending.flip();
+		try {
+			Path path = file.getCanonicalFile().toPath();
+			synchronized (LOCKS.computeIfAbsent(path, key -> new Object())) {
+				write(path);
+			}
+		} catch (IOException | RuntimeException e) {
+			pending.limit(pending.capacity()).position(buffered);
+			throw e;
+		}
+		pending.clear();
+	}
+
+	private void write(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE); FileLock ignored = channel.lock()) {
+			long size = channel.size();
+			if (size == 0) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER);
+				header.putInt(MAGIC).putInt(VERSION).putInt(issues.length).putInt(recordSize).flip();
+				while (header.hasRemaining()) size += channel.write(header, size);
+			} else if (!valid(channel)) {
+				throw new IOException(file + " was written for another domain");
+			}
+
+			// Start on a record boundary, overwriting any torn record
+			size = HEADER + (size - HEADER) / recordSize * recordSize;
+			while (pending.hasRemaining()) size += channel.write(pending, size);
+			channel.truncate(size);
+		}
+	}
+
+	private boolean valid(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0) ;
+		header.flip();
+		return header.remaining() == HEADER && header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == issues.length && header.getInt() == recordSize;
+	}
+
+	/**
+	 * Walk every archived offer in place. The record passed to the visitor is reused, don't hold on to it.
+	 */
+	public long scan(Visitor visitor) throws IOException {
+		if (!file.exists()) return 0;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER || !valid(channel)) return 0;
+			long records = (channel.size() - HEADER) / recordSize;
+			if (records == 0) return 0;
+
+			// Mappings are limited to 2GB, map in chunks of whole records
+			long perChunk = Integer.MAX_VALUE / recordSize;
+			Record record = new Record();
+			for (long start = 0; start < records; start += perChunk) {
+				long count = Math.min(perChunk, records - start);
+				record.buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + start * recordSize, count * recordSize);
+				for (int r = 0; r < count; r++) {
+					record.offset = r * recordSize;
+					visitor.visit(record);
+				}
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * How often each value of each issue was offered, in the domain's issue order
+	 */
+	public long[][] counts() throws IOException {
+		long[][] counts = new long[issues.length][];
+		for (int i = 0; i < issues.length; i++) counts[i] = new long[issues[i].getNumberOfValues()];
+		scan(record -> {
+			for (int i = 0; i < counts.length; i++) {
+				int ordinal = record.get(i);
+				if (ordinal < counts[i].length) ++counts[i][ordinal];
+			}
+		});
+		return counts;
+	}
+
+	public IssueDiscrete getIssue(int index) {
+		return issues[index];
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+	public interface Visitor {
+		void visit(Record record);
+	}
+
+	/**
+	 * A view of one record in the mapped file
+	 */
+	public static final class Record {
+		private MappedByteBuffer buffer;
+		private int offset;
+
+		/**
+		 * When the offer was made, 0 to 1
+		 */
+		public double getTime() {
+			return buffer.getChar(offset) / 65535.0;
+		}
+
+		/**
+		 * Ordinal of the value offered for the issue, 255 if it was unknown
+		 */
+		public int get(int issue) {
+			return buffer.get(offset + 2 + issue) & 0xFF;
+		}
+	}
+}
@@ -0,0 +1,264 @@
+package group23;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Monte Carlo tree search over the rest of the negotiation, experimental.
+ *
+ * Our moves are accepting the offer on the table or making one of a fixed set of candidate offers. Each opponent
+ * is modelled as a time-dependent conceder judging our offers by their frequency-estimated utility, a deal needs
+ * all of them to accept, and one of them counters with a bid drawn value by value from their frequency table.
+ * Their moves are sampled rather than branched on (open loop), so the tree is just sequences of our moves.
+ * Simulations past the tree play our moves at random, accepting anything above the given threshold.
+ *
+ * Everything in a simulation is primitives in arrays that grow with the tree, up to CAPACITY nodes. Each thread
+ * grows its own tree (root parallelism) and the visit counts at the root are summed to pick the move. A search
+ * uses at most as many threads as there are processors.
+ */
+public class OfferSearch {
+	/**
+	 * Index of the accept move, offers are 0 to candidates - 1
+	 */
+	public static final int ACCEPT = -1;
+	private static final int CAPACITY = 1 << 16;
+	/**
+	 * Nodes a tree starts with room for
+	 */
+	private static final int INITIAL = 1 << 10;
+	private static final double EXPLORATION = 0.7;
+	/**
+	 * How sharply the opponent's acceptance turns from no to yes around their threshold
+	 */
+	private static final double SHARPNESS = 0.05;
+
+	private final double[][] ours;
+	/**
+	 * Cumulative counts per opponent and issue
+	 */
+	private final double[][][] theirs;
+	private final double[] candidateUtility;
+	/**
+	 * How much each opponent should like each candidate, 0 to 1
+	 */
+	private final double[][] candidateScore;
+	private final int moves;
+	private final int horizon;
+	private final double time;
+	private final double reservation;
+	private final double acceptAbove;
+	private volatile long simulations;
+
+	/**
+	 * @param ours our utility contribution of each value of each issue
+	 * @param theirs how often each opponent has offered each value of each issue, in any units, at least one opponent
+	 * @param candidates the offers we choose between, one value ordinal per issue
+	 * @param horizon rounds left, at most
+	 * @param time where we are on the timeline now, 0 to 1
+	 * @param reservation what we get without a deal
+	 * @param acceptAbove past the tree, we accept anything at least this good
+	 */
+	public OfferSearch(double[][] ours, double[][][] theirs, int[][] candidates, int horizon, double time, double reservation, double acceptAbove) {
+		if (candidates.length == 0) throw new IllegalArgumentException("Need at least one candidate offer");
+		if (theirs.length == 0) throw new IllegalArgumentException("Need at least one opponent");
+		this.ours = ours;
+		this.horizon = Math.max(1, horizon);
+		this.time = time;
+		this.reservation = reservation;
+		this.acceptAbove = acceptAbove;
+		this.moves = candidates.length + 1;
+
+		candidateUtility = new double[candidates.length];
+		for (int c = 0; c < candidates.length; c++) {
+			for (int i = 0; i < ours.length; i++) candidateUtility[c] += ours[i][candidates[c][i]];
+		}
+
+		// Cumulative counts to sample their offers, scores are the average of count over most common count
+		this.theirs = new double[theirs.length][][];
+		candidateScore = new double[theirs.length][candidates.length];
+		for (int o = 0; o < theirs.length; o++) {
+			this.theirs[o] = new double[theirs[o].length][];
+			double[] most = new double[theirs[o].length];
+			for (int i = 0; i < theirs[o].length; i++) {
+				this.theirs[o][i] = new double[theirs[o][i].length];
+				double total = 0;
+				for (int j = 0; j < theirs[o][i].length; j++) {
+					this.theirs[o][i][j] = total += Math.max(0, theirs[o][i][j]);
+					most[i] = Math.max(most[i], theirs[o][i][j]);
+				}
+			}
+
+			for (int c = 0; c < candidates.length; c++) {
+				for (int i = 0; i < ours.length; i++) {
+					candidateScore[o][c] += most[i] > 0 ? Math.max(0, theirs[o][i][candidates[c][i]]) / most[i] : 0;
+				}
+				candidateScore[o][c] /= Math.max(1, ours.length);
+			}
+		}
+	}
+
+	/**
+	 * The best move with the offer on the table worth table to us, ACCEPT or the index of a candidate
+	 */
+	public int search(double table, long budgetNanos, int threads, long seed) {
+		long deadline = System.nanoTime() + budgetNanos;
+		threads = Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+		SplittableRandom random = new SplittableRandom(seed);
+
+		List<CompletableFuture<long[]>> futures = new ArrayList<>();
+		for (int t = 1; t < threads; t++) {
+			SplittableRandom split = random.split();
+			futures.add(CompletableFuture.supplyAsync(() -> new Tree().grow(table, deadline, split)));
+		}
+		long[] visits = new Tree().grow(table, deadline, random);
+		for (CompletableFuture<long[]> future : futures) {
+			long[] more = future.join();
+			for (int m = 0; m < moves; m++) visits[m] += more[m];
+		}
+
+		int best = 0;
+		long total = 0;
+		for (int m = 0; m < moves; m++) {
+			total += visits[m];
+			if (visits[m] > visits[best]) best = m;
+		}
+		simulations = total;
+		return best == moves - 1 ? ACCEPT : best;
+	}
+
+	/**
+	 * Simulations run by the last search, over all threads
+	 */
+	public long getSimulations() {
+		return simulations;
+	}
+
+	/**
+	 * One thread's tree. Children of a node are a block of moves consecutive nodes, the last one accepting.
+	 */
+	private final class Tree {
+		private int[] children = new int[INITIAL];
+		private int[] visits = new int[INITIAL];
+		private double[] totals = new double[INITIAL];
+		private final int[] path = new int[horizon + 2];
+		private int size = 1;
+
+		long[] grow(double table, long deadline, SplittableRandom random) {
+			children[0] = -1;
+			do {
+				// Check the clock every so often, it's not free
+				for (int i = 0; i < 64; i++) simulate(table, random);
+			} while (System.nanoTime() < deadline);
+
+			long[] root = new long[moves];
+			if (children[0] >= 0) for (int m = 0; m < moves; m++) root[m] = visits[children[0] + m];
+			return root;
+		}
+
+		private void simulate(double table, SplittableRandom random) {
+			int node = 0, length = 0;
+			path[length++] = node;
+			boolean inTree = true;
+			double payoff = reservation;
+
+			for (int round = 0; round < horizon; round++) {
+				int move;
+				if (inTree) {
+					if (children[node] < 0 && size + moves <= CAPACITY) {
+						// Expand, then carry on at random
+						if (size + moves > children.length) grow();
+						children[node] = size;
+						for (int m = 0; m < moves; m++) children[size + m] = -1;
+						size += moves;
+						move = random.nextInt(moves);
+						inTree = false;
+					} else if (children[node] < 0) {
+						move = random.nextInt(moves);
+						inTree = false;
+					} else {
+						move = select(node);
+					}
+					node = children[node] + move;
+					path[length++] = node;
+				} else {
+					move = table >= acceptAbove ? moves - 1 : random.nextInt(moves - 1);
+				}
+
+				if (move == moves - 1) {
+					payoff = table;
+					break;
+				}
+
+				// They all accept ours, or one of them counters
+				double t = time + (1 - time) * round / horizon;
+				double threshold = 1 - 0.6 * t * t;
+				boolean accepted = true;
+				for (int o = 0; o < candidateScore.length && accepted; o++) {
+					accepted = random.nextDouble() < 1 / (1 + Math.exp((threshold - candidateScore[o][move]) / SHARPNESS));
+				}
+				if (accepted) {
+					payoff = candidateUtility[move];
+					break;
+				}
+				table = counter(theirs[random.nextInt(theirs.length)], random);
+			}
+
+			for (int i = 0; i < length; i++) {
+				++visits[path[i]];
+				totals[path[i]] += payoff;
+			}
+		}
+
+		/**
+		 * Double the room for nodes, never past CAPACITY
+		 */
+		private void grow() {
+			int capacity = Math.min(CAPACITY, children.length * 2);
+			children = Arrays.copyOf(children, capacity);
+			visits = Arrays.copyOf(visits, capacity);
+			totals = Arrays.copyOf(totals, capacity);
+		}
+
+		/**
+		 * UCT, unvisited children first
+		 */
+		private int select(int node) {
+			int first = children[node], best = 0;
+			double bestValue = Double.NEGATIVE_INFINITY, log = Math.log(Math.max(1, visits[node]));
+			for (int m = 0; m < moves; m++) {
+				int child = first + m;
+				if (visits[child] == 0) return m;
+				double value = totals[child] / visits[child] + EXPLORATION * Math.sqrt(log / visits[child]);
+				if (value > bestValue) {
+					bestValue = value;
+					best = m;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Our utility of an offer an opponent with these cumulative counts might make
+		 */
+		private double counter(double[][] theirs, SplittableRandom random) {
+			double utility = 0;
+			for (int i = 0; i < ours.length; i++) {
+				double[] cumulative = theirs[i];
+				double total = cumulative[cumulative.length - 1];
+				if (total <= 0) {
+					utility += ours[i][random.nextInt(cumulative.length)];
+					continue;
+				}
+
+				double draw = random.nextDouble() * total;
+				int j = 0;
+				while (j < cumulative.length - 1 && cumulative[j] <= draw) ++j;
+				utility += ours[i][j];
+			}
+			return utility;
+		}
+	}
+}
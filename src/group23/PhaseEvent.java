@@ -0,0 +1,50 @@
+package group23;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one phase of Agent23's turn: setup, wheel, spin, acceptance or offer.
+ *
+ * Get one from Trace.phase() before the phase and finish() it after. Nothing but the timestamps is filled in unless a
+ * recording wants the event, and the JIT removes the allocation when JFR is off, so this can stay in production code.
+ * Only loaded through Trace, so a JRE without jdk.jfr never sees it.
+ */
+@Name("group23.Phase")
+@Label("Agent23 Phase")
+@Category({"Agent23", "Decision"})
+@Description("One phase of an Agent23 chooseAction call")
+@StackTrace(false)
+class PhaseEvent extends jdk.jfr.Event implements Trace.Phase {
+	@Label("Phase")
+	String phase;
+	@Label("Agent")
+	String agent;
+	@Label("Round")
+	int round;
+	@Label("Time")
+	@Description("Negotiation time from 0 to 1")
+	double time;
+	@Label("Spins")
+	int spins;
+	@Label("Utility")
+	@Description("Our utility of the bid chosen or considered in this phase")
+	double utility;
+
+	@Override
+	public void finish(Agent23 agent, String phase, int spins, double utility) {
+		end();
+		if (shouldCommit()) {
+			this.phase = phase;
+			this.agent = agent.getDescription();
+			this.round = agent.round;
+			this.time = agent.getTimeLine() != null ? agent.getTimeLine().getTime() : 0;
+			this.spins = spins;
+			this.utility = utility;
+			commit();
+		}
+	}
+}
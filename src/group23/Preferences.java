@@ -0,0 +1,165 @@
+package group23;
+
+import negotiator.Bid;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.ValueDiscrete;
+import negotiator.utility.AbstractUtilitySpace;
+import negotiator.utility.AdditiveUtilitySpace;
+import negotiator.utility.EvaluatorDiscrete;
+import negotiator.utility.UtilitySpace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Everything Agent23 needs to know about its own profile, worked out once in init and never changed after.
+ *
+ * The max bid and the per-issue tables don't depend on each other, so they are computed in parallel on the
+ * common pool. The snapshot is immutable and safe to read from any thread, so agents with the same profile share
+ * one through the ProfileCache.
+ */
+public final class Preferences {
+	private static final ProfileCache<Preferences> CACHE = new ProfileCache<>();
+
+	private final Bid maxBid;
+	private final Map<Integer, Double> weights;
+	private final Map<Integer, IssueTable> tables;
+	private final int failures;
+
+	private Preferences(Bid maxBid, Map<Integer, Double> weights, Map<Integer, IssueTable> tables, int failures) {
+		this.maxBid = maxBid;
+		this.weights = Collections.unmodifiableMap(weights);
+		this.tables = Collections.unmodifiableMap(tables);
+		this.failures = failures;
+	}
+
+	/**
+	 * The shared snapshot for a profile, computed by the first agent to ask for it. Throws if the max bid can't
+	 * be found, rather than share a stand-in.
+	 */
+	public static Preferences shared(AbstractUtilitySpace space) {
+		return CACHE.get(ProfileCache.fingerprint(space), () -> compute(space, () -> {
+			try {
+				return space.getMaxUtilityBid();
+			} catch (Exception e) {
+				throw new IllegalStateException("Failed to get maxUtilityBid()", e);
+			}
+		}));
+	}
+
+	public static ProfileCache<Preferences> getCache() {
+		return CACHE;
+	}
+
+	/**
+	 * Work out the snapshot for a utility space, maxBid is how to find the best bid (which may be slow)
+	 */
+	public static Preferences compute(UtilitySpace space, Supplier<Bid> maxBid) {
+		CompletableFuture<Bid> bid = CompletableFuture.supplyAsync(maxBid, ForkJoinPool.commonPool());
+
+		List<Issue> issues = space.getDomain().getIssues();
+		List<CompletableFuture<IssueTable>> futures = new ArrayList<>();
+		for (Issue issue : issues) {
+			if (issue instanceof IssueDiscrete) futures.add(CompletableFuture.supplyAsync(() -> IssueTable.compute(space, (IssueDiscrete) issue), ForkJoinPool.commonPool()));
+		}
+
+		// Weights are scaled so the average issue is worth 1
+		Map<Integer, Double> weights = new HashMap<>();
+		for (Issue issue : issues) {
+			weights.put(issue.getNumber(), space instanceof AdditiveUtilitySpace ? ((AdditiveUtilitySpace) space).getWeight(issue.getNumber()) * issues.size() : 1.0);
+		}
+
+		Map<Integer, IssueTable> tables = new HashMap<>();
+		int failures = 0;
+		for (CompletableFuture<IssueTable> future : futures) {
+			IssueTable table = future.join();
+			tables.put(table.getId(), table);
+			failures += table.failures;
+		}
+		return new Preferences(bid.join(), weights, tables, failures);
+	}
+
+	public Bid getMaxBid() {
+		return maxBid;
+	}
+
+	public Map<Integer, Double> getWeights() {
+		return weights;
+	}
+
+	/**
+	 * The table for a discrete issue, null for any other kind
+	 */
+	public IssueTable getTable(int id) {
+		return tables.get(id);
+	}
+
+	/**
+	 * How many values we couldn't evaluate
+	 */
+	public int getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Our evaluation of every value of one discrete issue, in the issue's own order
+	 */
+	public static final class IssueTable {
+		private final int id;
+		private final ValueDiscrete[] values;
+		private final double[] evaluations;
+		private final int failures;
+
+		private IssueTable(int id, ValueDiscrete[] values, double[] evaluations, int failures) {
+			this.id = id;
+			this.values = values;
+			this.evaluations = evaluations;
+			this.failures = failures;
+		}
+
+		static IssueTable compute(UtilitySpace space, IssueDiscrete issue) {
+			List<ValueDiscrete> list = issue.getValues();
+			ValueDiscrete[] values = list.toArray(new ValueDiscrete[0]);
+			double[] evaluations = new double[values.length];
+			int failures = 0;
+
+			for (int i = 0; i < values.length; i++) {
+				evaluations[i] = Double.NaN;
+				if (space instanceof AdditiveUtilitySpace) {
+					try {
+						evaluations[i] = ((EvaluatorDiscrete) ((AdditiveUtilitySpace) space).getEvaluator(issue.getNumber())).getEvaluation(values[i]);
+					} catch (Exception e) {
+						++failures;
+					}
+				}
+			}
+			return new IssueTable(issue.getNumber(), values, evaluations, failures);
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public int size() {
+			return values.length;
+		}
+
+		public ValueDiscrete getValue(int index) {
+			return values[index];
+		}
+
+		/**
+		 * Our evaluation of the value, or fallback if we don't have one (not additive, or it failed)
+		 */
+		public double getEvaluation(int index, double fallback) {
+			return Double.isNaN(evaluations[index]) ? fallback : evaluations[index];
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package group23;
+
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.IssueInteger;
+import negotiator.issue.ValueDiscrete;
+import negotiator.utility.AbstractUtilitySpace;
+import negotiator.utility.AdditiveUtilitySpace;
+import negotiator.utility.Evaluator;
+import negotiator.utility.EvaluatorDiscrete;
+import negotiator.utility.EvaluatorInteger;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Immutable things worked out from a profile, shared by every agent in the JVM that gets the same profile.
+ *
+ * Keys are a fingerprint of the domain and the preferences in it, so two agents loading the same XML files
+ * share even though their utility space objects differ. Spaces we can't fingerprint by content aren't cached.
+ * Values are held softly, so the GC can take them back under memory pressure and they're simply computed again.
+ * When several agents ask for the same key at once, only one computes and the rest wait for its result.
+ *
+ * Run with -Dgroup23.cache=false to compute everything per agent.
+ */
+public final class ProfileCache<V> {
+	public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("group23.cache"));
+
+	private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final ReferenceQueue<CompletableFuture<V>> cleared = new ReferenceQueue<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Soft reference that remembers its key, so we can drop the entry once the GC clears it
+	 */
+	private static class Entry<V> extends SoftReference<CompletableFuture<V>> {
+		private final String key;
+
+		Entry(String key, CompletableFuture<V> future, ReferenceQueue<CompletableFuture<V>> queue) {
+			super(future, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * The value for the key, computing it if nobody has yet. Failures aren't cached, and nothing is for a null key.
+	 */
+	public V get(String key, Supplier<V> compute) {
+		if (!ENABLED || key == null) return compute.get();
+		purge();
+
+		CompletableFuture<V> created = new CompletableFuture<>();
+		CompletableFuture<V> future;
+		while (true) {
+			Entry<V> entry = entries.get(key);
+			future = entry != null ? entry.get() : null;
+			if (future != null) break;
+
+			// Either nobody has it or the GC took it, try to be the one to compute it
+			Entry<V> mine = new Entry<>(key, created, cleared);
+			if (entry == null ? entries.putIfAbsent(key, mine) == null : entries.replace(key, entry, mine)) {
+				future = created;
+				break;
+			}
+		}
+
+		if (future != created) {
+			hits.increment();
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+			}
+		}
+
+		misses.increment();
+		try {
+			V value = compute.get();
+			created.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			entries.remove(key);
+			created.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void purge() {
+		for (Entry<V> entry; (entry = (Entry<V>) cleared.poll()) != null; ) entries.remove(entry.key, entry);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public int size() {
+		purge();
+		return entries.size();
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * A hash of everything in the space that affects our preferences: the issues and their values, weights,
+	 * evaluations, reservation value and discount. Null for spaces we can't see inside, anything else could end up
+	 * sharing a key with a different profile.
+	 */
+	public static String fingerprint(AbstractUtilitySpace space) {
+		StringBuilder builder = new StringBuilder(space.getClass().getName()).append('|').append(space.getDomain().getName())
+				.append('|').append(space.getReservationValueUndiscounted()).append('|').append(space.getDiscountFactor());
+
+		if (!(space instanceof AdditiveUtilitySpace)) return null;
+
+		AdditiveUtilitySpace additive = (AdditiveUtilitySpace) space;
+		for (Issue issue : space.getDomain().getIssues()) {
+			Evaluator evaluator = additive.getEvaluator(issue.getNumber());
+			builder.append('|').append(issue.getNumber()).append(':').append(issue.getName()).append('*').append(additive.getWeight(issue.getNumber()));
+
+			try {
+				if (issue instanceof IssueDiscrete && evaluator instanceof EvaluatorDiscrete) {
+					for (ValueDiscrete value : ((IssueDiscrete) issue).getValues()) {
+						builder.append(',').append(value.getValue()).append('=').append(((EvaluatorDiscrete) evaluator).getEvaluation(value));
+					}
+				} else if (issue instanceof IssueInteger && evaluator instanceof EvaluatorInteger) {
+					// Linear, so the ends say it all
+					EvaluatorInteger integer = (EvaluatorInteger) evaluator;
+					builder.append(',').append(integer.getLowerBound()).append('=').append(integer.getEvaluation(integer.getLowerBound()))
+							.append(',').append(integer.getUpperBound()).append('=').append(integer.getEvaluation(integer.getUpperBound()));
+				} else {
+					return null;
+				}
+			} catch (Exception e) {
+				return null;
+			}
+		}
+
+		try {
+			StringBuilder hex = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(builder.toString().getBytes(StandardCharsets.UTF_8))) hex.append(String.format("%02x", b));
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package group23;
+
+/**
+ * Agent23's Flight Recorder events, on JVMs that have Flight Recorder.
+ *
+ * PhaseEvent and ModelUpdateEvent extend jdk.jfr.Event, which Java 8 only has from 8u262. Only Flight names them, and
+ * Flight is only loaded once we've found jdk.jfr.Event, so on an older JRE (or with -Dgroup23.jfr=false) every event
+ * is a shared no-op and the agent never touches jdk.jfr. Compiling still needs a JDK with jdk.jfr.
+ */
+public final class Trace {
+	public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("group23.jfr")) && available();
+
+	/**
+	 * One phase of a turn, see PhaseEvent
+	 */
+	interface Phase {
+		void finish(Agent23 agent, String phase, int spins, double utility);
+	}
+
+	/**
+	 * An offer folded into the model, see ModelUpdateEvent
+	 */
+	interface Update {
+		void finish(Agent23 agent, Object sender, int issues);
+	}
+
+	private static final Phase NO_PHASE = (agent, phase, spins, utility) -> {};
+	private static final Update NO_UPDATE = (agent, sender, issues) -> {};
+
+	private Trace() {
+	}
+
+	private static boolean available() {
+		try {
+			Class.forName("jdk.jfr.Event", false, Trace.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Start timing a phase, finish() it after
+	 */
+	static Phase phase() {
+		return ENABLED ? Flight.phase() : NO_PHASE;
+	}
+
+	/**
+	 * Start timing a model update, finish() it after
+	 */
+	static Update update() {
+		return ENABLED ? Flight.update() : NO_UPDATE;
+	}
+
+	/**
+	 * The only class that names the events, so the only one that needs jdk.jfr
+	 */
+	private static final class Flight {
+		static Phase phase() {
+			PhaseEvent event = new PhaseEvent();
+			event.begin();
+			return event;
+		}
+
+		static Update update() {
+			ModelUpdateEvent event = new ModelUpdateEvent();
+			event.begin();
+			return event;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package group23;
+
+/**
+ * Max, min and average of the most recent utilities, by count and/or by time, in amortised O(1) per utility.
+ * Max and min come from monotonic deques and the average from a running sum, all in primitive ring buffers that
+ * only grow with the window. Acceptance conditions like "their offer beats the best of their last W" use this
+ * instead of rescanning the bid history every turn. Not thread safe.
+ */
+public class UtilityWindow {
+	/**
+	 * Most utilities in the window
+	 */
+	private final int size;
+	/**
+	 * Oldest utility kept, as time before the newest
+	 */
+	private final double span;
+
+	/**
+	 * Utilities and times by sequence number, in [first, next)
+	 */
+	private double[] utilities = new double[16];
+	private double[] times = new double[16];
+	private long first, next;
+	/**
+	 * Sequence numbers of decreasing utilities in [maxFirst, maxNext), increasing in [minFirst, minNext)
+	 */
+	private long[] maxima = new long[16];
+	private long[] minima = new long[16];
+	private long maxFirst, maxNext, minFirst, minNext;
+	private double sum;
+
+	/**
+	 * The last size utilities however old, and only those from the last span of time
+	 */
+	public UtilityWindow(int size, double span) {
+		if (size < 1) throw new IllegalArgumentException("Window needs room for a utility");
+		this.size = size;
+		this.span = span;
+	}
+
+	/**
+	 * The last size utilities
+	 */
+	public static UtilityWindow ofSize(int size) {
+		return new UtilityWindow(size, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Utilities from the last span of time
+	 */
+	public static UtilityWindow ofSpan(double span) {
+		return new UtilityWindow(Integer.MAX_VALUE, span);
+	}
+
+	public void add(double utility, double time) {
+		if (next - first == utilities.length) grow();
+		int mask = utilities.length - 1;
+		utilities[(int) next & mask] = utility;
+		times[(int) next & mask] = time;
+		sum += utility;
+
+		while (maxNext > maxFirst && utilities[(int) maxima[(int) (maxNext - 1) & mask] & mask] <= utility) maxNext--;
+		maxima[(int) maxNext++ & mask] = next;
+		while (minNext > minFirst && utilities[(int) minima[(int) (minNext - 1) & mask] & mask] >= utility) minNext--;
+		minima[(int) minNext++ & mask] = next;
+		next++;
+
+		while (next - first > size) evict();
+		expire(time);
+	}
+
+	/**
+	 * Drop utilities older than the span at this time, for when time passes without new utilities
+	 */
+	public void expire(double now) {
+		while (next > first && times[(int) first & (utilities.length - 1)] < now - span) evict();
+	}
+
+	private void evict() {
+		int mask = utilities.length - 1;
+		sum -= utilities[(int) first & mask];
+		if (maxNext > maxFirst && maxima[(int) maxFirst & mask] == first) maxFirst++;
+		if (minNext > minFirst && minima[(int) minFirst & mask] == first) minFirst++;
+		first++;
+
+		// Add the sum up again once per trip round the buffer so rounding can't build up, still O(1) amortised
+		if (((int) first & mask) == 0) {
+			sum = 0;
+			for (long s = first; s < next; s++) sum += utilities[(int) s & mask];
+		}
+	}
+
+	/**
+	 * Double every buffer, the deques never hold more than the window so they grow with it
+	 */
+	private void grow() {
+		int mask = utilities.length - 1;
+		int capacity = utilities.length * 2;
+		double[] newUtilities = new double[capacity], newTimes = new double[capacity];
+		long[] newMaxima = new long[capacity], newMinima = new long[capacity];
+		for (long s = first; s < next; s++) {
+			newUtilities[(int) s & (capacity - 1)] = utilities[(int) s & mask];
+			newTimes[(int) s & (capacity - 1)] = times[(int) s & mask];
+		}
+		for (long s = maxFirst; s < maxNext; s++) newMaxima[(int) s & (capacity - 1)] = maxima[(int) s & mask];
+		for (long s = minFirst; s < minNext; s++) newMinima[(int) s & (capacity - 1)] = minima[(int) s & mask];
+		utilities = newUtilities;
+		times = newTimes;
+		maxima = newMaxima;
+		minima = newMinima;
+	}
+
+	public int size() {
+		return (int) (next - first);
+	}
+
+	public boolean isEmpty() {
+		return next == first;
+	}
+
+	/**
+	 * Highest utility in the window, NaN if it's empty
+	 */
+	public double max() {
+		return isEmpty() ? Double.NaN : utilities[(int) maxima[(int) maxFirst & (utilities.length - 1)] & (utilities.length - 1)];
+	}
+
+	/**
+	 * Lowest utility in the window, NaN if it's empty
+	 */
+	public double min() {
+		return isEmpty() ? Double.NaN : utilities[(int) minima[(int) minFirst & (utilities.length - 1)] & (utilities.length - 1)];
+	}
+
+	/**
+	 * Mean utility in the window, NaN if it's empty
+	 */
+	public double average() {
+		return isEmpty() ? Double.NaN : sum / size();
+	}
+
+	/**
+	 * Most recent utility, NaN if the window is empty
+	 */
+	public double last() {
+		return isEmpty() ? Double.NaN : utilities[(int) (next - 1) & (utilities.length - 1)];
+	}
+}
@@ -0,0 +1,125 @@
+package group23;
+
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.EndNegotiation;
+import negotiator.actions.Offer;
+import negotiator.issue.Issue;
+import negotiator.issue.IssueDiscrete;
+import negotiator.issue.IssueInteger;
+import negotiator.issue.IssueReal;
+import negotiator.issue.Value;
+import negotiator.issue.ValueInteger;
+import negotiator.issue.ValueReal;
+import negotiator.parties.NegotiationInfo;
+import negotiator.persistent.DefaultPersistentDataContainer;
+import negotiator.persistent.PersistentDataType;
+import negotiator.timeline.DiscreteTimeline;
+import negotiator.utility.AbstractUtilitySpace;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gets the JIT to compile Agent23's hot paths before the first real turn.
+ *
+ * Run with -Dgroup23.warmup=N to spend up to N milliseconds of the first init in the JVM playing a throwaway copy
+ * of the agent against synthetic offers on the real domain. That drives the wheel build, the spin loop and the
+ * utility code the same way a session does, without touching the real agent or the shared metrics. The JIT is
+ * shared by the whole JVM, so later agents don't warm up again.
+ */
+public final class Warmup {
+	public static final String PROPERTY = "group23.warmup";
+	private static final List<Class<? extends Action>> ACTIONS = Arrays.asList(Accept.class, Offer.class, EndNegotiation.class);
+	private static final int ROUNDS = 200;
+	private static final AtomicBoolean DONE = new AtomicBoolean();
+
+	private Warmup() {
+	}
+
+	/**
+	 * The warm-up budget in milliseconds, 0 for none
+	 */
+	public static long budgetMillis() {
+		return Long.getLong(PROPERTY, 0);
+	}
+
+	/**
+	 * Warm up with the given agent's class and profile, once per JVM. Returns the number of turns played.
+	 */
+	public static int once(Agent23 agent, long budgetMillis) {
+		if (budgetMillis <= 0 || !DONE.compareAndSet(false, true)) return 0;
+		return run(agent, TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+	}
+
+	/**
+	 * Play throwaway sessions for up to budgetNanos
+	 */
+	public static int run(Agent23 agent, long budgetNanos) {
+		long deadline = System.nanoTime() + budgetNanos;
+		AbstractUtilitySpace space = agent.getUtilitySpace();
+		SplittableRandom random = new SplittableRandom(agent.identity);
+		AgentID self = new AgentID("warmup"), opponent = new AgentID("warmup-opponent");
+		int turns = 0;
+
+		for (int session = 0; System.nanoTime() < deadline; session++) {
+			Agent23 dummy = copy(agent);
+			DiscreteTimeline timeline = new DiscreteTimeline(ROUNDS);
+			dummy.init(new NegotiationInfo(space, new Deadline(ROUNDS, DeadlineType.ROUND), timeline, session, self, new DefaultPersistentDataContainer(null, PersistentDataType.DISABLED)));
+
+			while (!timeline.isDeadlineReached() && System.nanoTime() < deadline) {
+				dummy.receiveMessage(opponent, new Offer(opponent, randomBid(space, random)));
+				dummy.chooseAction(ACTIONS);
+				timeline.increment();
+				++turns;
+			}
+			dummy.negotiationEnded(null);
+		}
+		return turns;
+	}
+
+	/**
+	 * A fresh agent of the same class with the same parameters, that doesn't log or record metrics
+	 */
+	private static Agent23 copy(Agent23 agent) {
+		Agent23 dummy;
+		try {
+			dummy = agent.getClass().getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			dummy = new Agent23();
+		}
+		dummy.setParameters(agent.getParameters());
+		dummy.silent = true;
+		dummy.archiving = false;
+		dummy.metrics = new AgentMetrics();
+		return dummy;
+	}
+
+	/**
+	 * Any bid in the domain, with every value equally likely
+	 */
+	static Bid randomBid(AbstractUtilitySpace space, SplittableRandom random) {
+		HashMap<Integer, Value> values = new HashMap<>();
+		for (Issue issue : space.getDomain().getIssues()) {
+			if (issue instanceof IssueDiscrete) {
+				IssueDiscrete discrete = (IssueDiscrete) issue;
+				values.put(issue.getNumber(), discrete.getValue(random.nextInt(discrete.getNumberOfValues())));
+			} else if (issue instanceof IssueInteger) {
+				IssueInteger integer = (IssueInteger) issue;
+				values.put(issue.getNumber(), new ValueInteger(integer.getLowerBound() + random.nextInt(integer.getUpperBound() - integer.getLowerBound() + 1)));
+			} else if (issue instanceof IssueReal) {
+				IssueReal real = (IssueReal) issue;
+				values.put(issue.getNumber(), new ValueReal(real.getLowerBound() + random.nextDouble() * (real.getUpperBound() - real.getLowerBound())));
+			}
+		}
+		return new Bid(space.getDomain(), values);
+	}
+}
@@ -0,0 +1,110 @@
+package group23;
+
+import negotiator.timeline.TimeLineInfo;
+import negotiator.timeline.Timeline;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs an agent's work on its own worker thread and gives up on a turn that takes too long.
+ *
+ * Everything that touches the agent's state goes through the one worker in submission order, so a turn that
+ * overran is simply still at the front of the queue and the messages after it wait behind it. The caller never
+ * waits longer than the budget, it takes the fallback instead.
+ *
+ * The budget is a share of the time left on the TimeLine, capped at -Dgroup23.watchdog.ms (500 by default). Round
+ * based timelines have no clock, so they just get the cap.
+ */
+public class Watchdog implements AutoCloseable {
+	public static final String PROPERTY = "group23.watchdog";
+	/**
+	 * Most a turn may take, in milliseconds
+	 */
+	public static final long MAX_MILLIS = Long.getLong(PROPERTY + ".ms", 500);
+	/**
+	 * Least a turn gets, however close we are to the deadline
+	 */
+	public static final long MIN_MILLIS = 5;
+	/**
+	 * Share of the remaining time one turn may use
+	 */
+	public static final double SHARE = 0.02;
+
+	private final ExecutorService worker;
+	private volatile Thread thread;
+
+	public Watchdog(String name) {
+		worker = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "group23-watchdog-" + name);
+			thread.setDaemon(true);
+			this.thread = thread;
+			return thread;
+		});
+	}
+
+	/**
+	 * Is the watchdog switched on, with -Dgroup23.watchdog=true?
+	 */
+	public static boolean enabled() {
+		return Boolean.getBoolean(PROPERTY);
+	}
+
+	/**
+	 * How long this turn may take
+	 */
+	public static long budgetNanos(TimeLineInfo timeline) {
+		long max = TimeUnit.MILLISECONDS.toNanos(MAX_MILLIS);
+		if (timeline == null || timeline.getType() != Timeline.Type.Time) return max;
+
+		double remaining = Math.max(0, timeline.getTotalTime() - timeline.getCurrentTime());
+		long share = (long) (remaining * SHARE * 1e9);
+		return Math.max(TimeUnit.MILLISECONDS.toNanos(MIN_MILLIS), Math.min(max, share));
+	}
+
+	/**
+	 * Are we running on the worker? Work that is already on it must not be queued again
+	 */
+	public boolean isWorker() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Run the task on the worker, or hand back the fallback if it doesn't finish within the budget.
+	 * The task keeps running if it overruns, anything queued after it waits its turn.
+	 */
+	public <T> T call(Callable<T> task, long budgetNanos, Supplier<T> fallback) {
+		Future<T> future = isWorker() ? null : worker.submit(task);
+		try {
+			return future != null ? future.get(budgetNanos, TimeUnit.NANOSECONDS) : task.call();
+		} catch (TimeoutException e) {
+			return fallback.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return fallback.get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Queue work on the worker without waiting for it
+	 */
+	public void execute(Runnable task) {
+		if (isWorker()) task.run();
+		else worker.execute(task);
+	}
+
+	@Override
+	public void close() {
+		worker.shutdownNow();
+	}
+}
@@ -0,0 +1,93 @@
+package group23.bench;
+
+import group23.BidSampler;
+import group23.tournament.Arguments;
+import group23.tournament.DomainGenerator;
+import group23.tournament.Scenario;
+import negotiator.Bid;
+import negotiator.utility.AdditiveUtilitySpace;
+
+import java.util.Random;
+
+/**
+ * Cost of drawing a random bid above a threshold, BidSampler against drawing random bids until one is good enough,
+ * as the threshold goes up to our best utility, e.g.
+ * java group23.bench.BidSampling domain=party_domain.xml profiles=party1_utility.xml samples=100000
+ * java group23.bench.BidSampling issues=20 values=8 samples=100000
+ *
+ * Thresholds are fractions of the best utility. Rejection gets at most attempts tries per sample, the samples it
+ * couldn't find anything for are counted as failures.
+ */
+public class BidSampling {
+	private static final double[] THRESHOLDS = {0, 0.5, 0.7, 0.8, 0.9, 0.95, 0.99, 1};
+
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		DomainGenerator.apply(arguments);
+		Scenario scenario = new Scenario(arguments.get("domain"), arguments.getList("profiles"));
+		AdditiveUtilitySpace space = scenario.getProfile(arguments.getInt("profile", 0));
+		int samples = arguments.getInt("samples", 100_000);
+		int attempts = arguments.getInt("attempts", 100_000);
+		Random random = new Random(arguments.getLong("seed", 23));
+
+		long start = System.nanoTime();
+		BidSampler sampler = new BidSampler(space);
+		System.out.println(String.format("%d outcomes, sampler built in %.2f ms, best utility %.4f",
+				space.getDomain().getNumberOfPossibleBids(), (System.nanoTime() - start) / 1e6, sampler.getMaxUtility()));
+
+		// Warm both up before measuring anything
+		sample(sampler, space, 0.5 * sampler.getMaxUtility(), samples, random);
+		reject(space, 0.5 * sampler.getMaxUtility(), samples / 10, attempts, random);
+
+		System.out.println("threshold\tsampler ns\trejection ns\tacceptance\tfailures");
+		for (double fraction : THRESHOLDS) {
+			double threshold = fraction * sampler.getMaxUtility();
+			double sampled = sample(sampler, space, threshold, samples, random);
+			long[] rejected = new long[2];
+			int tries = Math.max(1, samples / 100);
+			start = System.nanoTime();
+			for (int i = 0; i < tries; i++) {
+				long[] one = reject(space, threshold, 1, attempts, random);
+				rejected[0] += one[0];
+				rejected[1] += one[1];
+			}
+			double rejection = (System.nanoTime() - start) / (double) tries;
+			System.out.println(String.format("%.4f\t%.0f\t%.0f\t%.2e\t%d/%d",
+					threshold, sampled, rejection, rejected[0] / (double) rejected[1], tries - rejected[0], tries));
+		}
+	}
+
+	/**
+	 * Nanos per sample, checking every sample really is good enough
+	 */
+	private static double sample(BidSampler sampler, AdditiveUtilitySpace space, double threshold, int samples, Random random) {
+		long start = System.nanoTime();
+		for (int i = 0; i < samples; i++) {
+			Bid bid = sampler.sample(threshold, random);
+			if (bid == null) throw new IllegalStateException("Nothing drawn at " + threshold);
+		}
+		long nanos = System.nanoTime() - start;
+		for (int i = 0; i < 1000; i++) {
+			Bid bid = sampler.sample(threshold, random);
+			if (space.getUtility(bid) < threshold) throw new IllegalStateException("Drew " + space.getUtility(bid) + " below " + threshold);
+		}
+		return nanos / (double) samples;
+	}
+
+	/**
+	 * Bids found and random bids tried, for samples bids at the threshold with at most attempts tries each
+	 */
+	private static long[] reject(AdditiveUtilitySpace space, double threshold, int samples, int attempts, Random random) {
+		long found = 0, tried = 0;
+		for (int i = 0; i < samples; i++) {
+			for (int attempt = 0; attempt < attempts; attempt++) {
+				tried++;
+				if (space.getUtility(space.getDomain().getRandomBid(random)) >= threshold) {
+					found++;
+					break;
+				}
+			}
+		}
+		return new long[] {found, tried};
+	}
+}
@@ -0,0 +1,131 @@
+package group23.bench;
+
+import group23.Agent23;
+import group23.Warmup;
+import group23.tournament.Arguments;
+import group23.tournament.DomainGenerator;
+import group23.tournament.Parties;
+import group23.tournament.Scenario;
+import negotiator.AgentID;
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.EndNegotiation;
+import negotiator.actions.Offer;
+import negotiator.parties.NegotiationInfo;
+import negotiator.parties.NegotiationParty;
+import negotiator.persistent.DefaultPersistentDataContainer;
+import negotiator.persistent.PersistentDataType;
+import negotiator.timeline.DiscreteTimeline;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latency of Agent23's first rounds in a fresh JVM, with and without the JIT warm-up, e.g.
+ * java group23.bench.FirstRounds domain=party_domain.xml profiles=party1_utility.xml,party2_utility.xml rounds=50 runs=5 warmup=200
+ *
+ * Every run is its own JVM, as the JIT only starts cold once. Reports init time and the mean of each of the first
+ * rounds over all runs, for runs without warm-up and runs with -Dgroup23.warmup set.
+ */
+public class FirstRounds {
+	private static final List<Class<? extends Action>> ACTIONS = Arrays.asList(Accept.class, Offer.class, EndNegotiation.class);
+	private static final String PREFIX = "timings=";
+
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		if (arguments.has("child")) {
+			child(arguments);
+			return;
+		}
+
+		int runs = arguments.getInt("runs", 5);
+		int rounds = arguments.getInt("rounds", 50);
+		long warmup = arguments.getLong("warmup", 200);
+
+		double[][] cold = measure(args, runs, rounds, 0);
+		double[][] warm = measure(args, runs, rounds, warmup);
+
+		System.out.println(String.format("init ms: cold %.2f, warm %.2f (budget %d ms)", cold[0][0] / 1e6, warm[0][0] / 1e6, warmup));
+		System.out.println("round\tcold us\twarm us");
+		for (int i = 0; i < rounds; i++) {
+			System.out.println(String.format("%d\t%.1f\t%.1f", i + 1, cold[1][i] / 1e3, warm[1][i] / 1e3));
+		}
+		System.out.println(String.format("total us: cold %.1f, warm %.1f", sum(cold[1]) / 1e3, sum(warm[1]) / 1e3));
+	}
+
+	/**
+	 * Mean init time and mean time of each round over the runs, each run in a fresh JVM
+	 */
+	private static double[][] measure(String[] args, int runs, int rounds, long warmup) throws Exception {
+		double[][] means = {new double[1], new double[rounds]};
+		for (int run = 0; run < runs; run++) {
+			List<String> command = new ArrayList<>(Arrays.asList(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+					"-cp", System.getProperty("java.class.path"), "-Dgroup23.quiet=true", "-D" + Warmup.PROPERTY + "=" + warmup, FirstRounds.class.getName(), "child=true", "seed=" + run));
+			command.addAll(Arrays.asList(args));
+			Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				// Opponents may print whatever they like, our line is the one with the prefix
+				String line;
+				do {
+					line = reader.readLine();
+				} while (line != null && !line.startsWith(PREFIX));
+				if (line == null) throw new IllegalStateException("Run " + run + " printed no timings");
+				String[] times = line.substring(PREFIX.length()).split(",");
+				means[0][0] += Long.parseLong(times[0]) / (double) runs;
+				for (int i = 0; i < rounds; i++) means[1][i] += Long.parseLong(times[i + 1]) / (double) runs;
+			}
+			if (process.waitFor() != 0) throw new IllegalStateException("Run " + run + " failed");
+		}
+		return means;
+	}
+
+	/**
+	 * One cold session against the opponent, printing init and chooseAction nanos as one comma separated line
+	 */
+	private static void child(Arguments arguments) throws Exception {
+		DomainGenerator.apply(arguments);
+		Scenario scenario = new Scenario(arguments.get("domain"), arguments.getList("profiles"));
+		int rounds = arguments.getInt("rounds", 50);
+		long seed = arguments.getLong("seed", 0);
+		NegotiationParty opponent = Parties.byName(arguments.get("opponent", "group23.Agent23")).get();
+		Agent23 agent = (Agent23) Parties.byName(arguments.get("agent", "group23.Agent23")).get();
+
+		Deadline deadline = new Deadline(rounds, DeadlineType.ROUND);
+		DiscreteTimeline timeline = new DiscreteTimeline(rounds);
+		AgentID us = new AgentID("us"), them = new AgentID("them");
+
+		long start = System.nanoTime();
+		agent.init(new NegotiationInfo(scenario.getProfile(0), deadline, timeline, seed, us, new DefaultPersistentDataContainer(null, PersistentDataType.DISABLED)));
+		long init = System.nanoTime() - start;
+		opponent.init(new NegotiationInfo(scenario.getProfile(1), deadline, timeline, seed + 1, them, new DefaultPersistentDataContainer(null, PersistentDataType.DISABLED)));
+
+		StringBuilder builder = new StringBuilder(PREFIX).append(init);
+		Action last = null;
+		for (int i = 0; i < rounds; i++) {
+			// Keep the session going whatever is decided, we only care about timings
+			Action theirs = opponent.chooseAction(last == null ? Arrays.<Class<? extends Action>>asList(Offer.class) : ACTIONS);
+			if (theirs instanceof Offer) agent.receiveMessage(them, theirs);
+
+			start = System.nanoTime();
+			last = agent.chooseAction(ACTIONS);
+			builder.append(',').append(System.nanoTime() - start);
+
+			if (last instanceof Offer) opponent.receiveMessage(us, last);
+			timeline.increment();
+		}
+		System.out.println(builder);
+	}
+
+	private static double sum(double[] values) {
+		double sum = 0;
+		for (double value : values) sum += value;
+		return sum;
+	}
+}
@@ -0,0 +1,143 @@
+package group23.bench;
+
+import group23.Agent23;
+import group23.tournament.Arguments;
+import group23.tournament.DomainGenerator;
+import group23.tournament.Parties;
+import group23.tournament.Scenario;
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.actions.Accept;
+import negotiator.actions.Action;
+import negotiator.actions.EndNegotiation;
+import negotiator.actions.Offer;
+import negotiator.parties.NegotiationInfo;
+import negotiator.persistent.DefaultPersistentDataContainer;
+import negotiator.persistent.PersistentDataType;
+import negotiator.timeline.DiscreteTimeline;
+import negotiator.utility.AdditiveUtilitySpace;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Agent23's turn latency and memory as the number of parties in a session goes up, e.g.
+ * java group23.bench.PartyScaling domain=party_domain.xml profiles=party1_utility.xml,...,party9_utility.xml sizes=3,10,50,100 rounds=200
+ * java -Dgroup23.crowd=8 group23.bench.PartyScaling domain=party_domain.xml profiles=... sizes=3,10,50,100 rounds=200
+ *
+ * Agent23 plays the first profile, every other party offers the best of a few random bids for a profile taken in
+ * turn from the rest, reusing profiles when there are more parties than profiles. Each round every other party
+ * offers and then Agent23 takes its turn. Reports the mean and worst turn, the time to take in a round of offers,
+ * and how much heap the agent holds on to after the session. The session sizes are sizes=, as parties= is how many
+ * profiles DomainGenerator makes when the domain is generated.
+ */
+public class PartyScaling {
+	private static final List<Class<? extends Action>> ACTIONS = Arrays.asList(Accept.class, Offer.class, EndNegotiation.class);
+
+	public static void main(String[] args) throws Exception {
+		// Logging every message would swamp the timings
+		if (System.getProperty("group23.quiet") == null) System.setProperty("group23.quiet", "true");
+
+		Arguments arguments = new Arguments(args);
+		DomainGenerator.apply(arguments);
+		Scenario scenario = new Scenario(arguments.get("domain"), arguments.getList("profiles"));
+		int rounds = arguments.getInt("rounds", 200);
+		int tries = arguments.getInt("tries", 3);
+		long seed = arguments.getLong("seed", 23);
+		String agent = arguments.get("agent", "group23.Agent23");
+
+		List<Integer> counts = new ArrayList<>();
+		for (String count : arguments.get("sizes", "3,5,10,20,50,100").split(",")) counts.add(Integer.parseInt(count.trim()));
+
+		System.out.println("crowd=" + System.getProperty("group23.crowd", "off") + " background=" + System.getProperty("group23.background", "false") + ", " + rounds + " rounds");
+		// Warm up on the biggest session before measuring anything
+		session(scenario, agent, counts.get(counts.size() - 1), rounds, seed);
+
+		System.out.println("parties\tturn us\tworst turn us\toffers us/round\tretained KB");
+		for (int parties : counts) {
+			double[] best = null;
+			for (int i = 0; i < tries; i++) {
+				double[] result = session(scenario, agent, parties, rounds, seed + i);
+				if (best == null || result[0] < best[0]) best = result;
+			}
+			System.out.println(String.format("%d\t%.1f\t%.1f\t%.1f\t%.1f", parties, best[0] / 1e3, best[1] / 1e3, best[2] / 1e3, best[3] / 1024));
+		}
+	}
+
+	/**
+	 * One session: mean turn nanos, worst turn nanos, mean nanos to receive a round of offers, bytes retained
+	 */
+	private static double[] session(Scenario scenario, String name, int parties, int rounds, long seed) throws Exception {
+		Random random = new Random(seed);
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long before = used(memory);
+
+		Agent23 agent = (Agent23) Parties.byName(name).get();
+		Deadline deadline = new Deadline(rounds, DeadlineType.ROUND);
+		DiscreteTimeline timeline = new DiscreteTimeline(rounds);
+		AgentID us = new AgentID("us");
+		agent.init(new NegotiationInfo(scenario.getProfile(0), deadline, timeline, seed, us, new DefaultPersistentDataContainer(null, PersistentDataType.DISABLED)));
+
+		// The others, with the profiles they offer for
+		AgentID[] others = new AgentID[parties - 1];
+		AdditiveUtilitySpace[] profiles = new AdditiveUtilitySpace[parties - 1];
+		for (int i = 0; i < others.length; i++) {
+			others[i] = new AgentID("party" + (i + 1));
+			profiles[i] = scenario.getProfile(scenario.size() > 1 ? 1 + i % (scenario.size() - 1) : 0);
+		}
+
+		long turns = 0, worst = 0, offers = 0;
+		for (int round = 0; round < rounds; round++) {
+			// Draw their offers first, so only receiving them is timed
+			Offer[] offered = new Offer[others.length];
+			for (int i = 0; i < others.length; i++) offered[i] = new Offer(others[i], offer(profiles[i], random));
+
+			long start = System.nanoTime();
+			for (int i = 0; i < others.length; i++) agent.receiveMessage(others[i], offered[i]);
+			offers += System.nanoTime() - start;
+
+			// Keep the session going whatever is decided, we only care about timings
+			start = System.nanoTime();
+			agent.chooseAction(ACTIONS);
+			long turn = System.nanoTime() - start;
+			turns += turn;
+			worst = Math.max(worst, turn);
+			timeline.increment();
+		}
+
+		long retained = used(memory) - before;
+		agent.negotiationEnded(null);
+		return new double[] {turns / (double) rounds, worst, offers / (double) rounds, Math.max(0, retained)};
+	}
+
+	/**
+	 * A stand-in for an opponent's offer, the best of a few random bids for its profile
+	 */
+	private static Bid offer(AdditiveUtilitySpace profile, Random random) {
+		Bid best = null;
+		double utility = -1;
+		for (int i = 0; i < 3; i++) {
+			Bid bid = profile.getDomain().getRandomBid(random);
+			double u = profile.getUtility(bid);
+			if (u > utility) {
+				best = bid;
+				utility = u;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Heap in use after a collection, near enough
+	 */
+	private static long used(MemoryMXBean memory) {
+		for (int i = 0; i < 2; i++) System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
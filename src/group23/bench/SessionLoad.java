@@ -0,0 +1,109 @@
+package group23.bench;
+
+import group23.tournament.Arguments;
+import group23.tournament.DomainGenerator;
+import group23.tournament.LocalSession;
+import group23.tournament.Parties;
+import group23.tournament.Scenario;
+import group23.tournament.SessionExecutor;
+import group23.tournament.SessionResult;
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.parties.NegotiationParty;
+import negotiator.utility.AbstractUtilitySpace;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a lot of sessions through a SessionExecutor and reports per-session latency and heap use, e.g.
+ * java -Dgroup23.quiet=true group23.bench.SessionLoad domain=party_domain.xml profiles=party1_utility.xml,party2_utility.xml,party3_utility.xml sessions=20000 mode=virtual
+ *
+ * Sessions are created as they start, like the tournament does, and the heap is measured from before any exist, so
+ * the per-session figure includes the sessions' parties.
+ */
+public class SessionLoad {
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		DomainGenerator.apply(arguments);
+		Scenario scenario = new Scenario(arguments.get("domain"), arguments.getList("profiles"));
+		int sessions = arguments.getInt("sessions", 10_000);
+		Deadline deadline = arguments.has("seconds") ? new Deadline(arguments.getInt("seconds", 0), DeadlineType.TIME) : new Deadline(arguments.getInt("rounds", 180), DeadlineType.ROUND);
+		List<Supplier<NegotiationParty>> agents = Parties.byName(Arrays.asList(arguments.get("agents", "group23.Agent23").split(",")));
+
+		String mode = arguments.get("mode", "auto");
+		SessionExecutor executor = SessionExecutor.create(mode, arguments.getInt("threads", Runtime.getRuntime().availableProcessors()), deadline);
+
+		// Watch the heap while we run, from before any session exists
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		System.gc();
+		long baseline = memory.getHeapMemoryUsage().getUsed();
+		AtomicLong peak = new AtomicLong(baseline);
+		Thread sampler = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		});
+		sampler.setDaemon(true);
+		sampler.start();
+
+		long start = System.nanoTime();
+		List<SessionResult> results = new ArrayList<>();
+		try {
+			List<Future<SessionResult>> futures = new ArrayList<>();
+			for (int i = 0; i < sessions; i++) {
+				int session = i;
+				futures.add(executor.submit(() -> create(scenario, agents, deadline, session), result -> {}));
+			}
+			for (Future<SessionResult> future : futures) results.add(future.get());
+		} finally {
+			executor.close();
+			sampler.interrupt();
+		}
+		long wall = System.nanoTime() - start;
+
+		long[] latencies = new long[results.size()];
+		int agreements = 0, errors = 0;
+		for (int i = 0; i < results.size(); i++) {
+			latencies[i] = results.get(i).getNanos();
+			if (results.get(i).isAgreement()) ++agreements;
+			if (results.get(i).getError() != null) ++errors;
+		}
+		Arrays.sort(latencies);
+
+		System.out.println(String.format("%d sessions on %s threads in %.2fs (%.0f sessions/s), at most %d in flight",
+				sessions, executor.isVirtual() ? "virtual" : "platform", wall / 1e9, sessions / (wall / 1e9), executor.getMaxInFlight()));
+		System.out.println(String.format("latency ms p50=%.2f p90=%.2f p99=%.2f max=%.2f",
+				percentile(latencies, 0.5) / 1e6, percentile(latencies, 0.9) / 1e6, percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6));
+		System.out.println(String.format("heap peak +%.1f MB, %.1f KB per in-flight session", (peak.get() - baseline) / 1048576.0, (peak.get() - baseline) / 1024.0 / Math.max(1, executor.getMaxInFlight())));
+		System.out.println(agreements + " agreements, " + errors + " errors");
+	}
+
+	/**
+	 * Session i, the agents taking turns at the profiles
+	 */
+	private static LocalSession create(Scenario scenario, List<Supplier<NegotiationParty>> agents, Deadline deadline, int i) {
+		List<NegotiationParty> parties = new ArrayList<>();
+		List<AbstractUtilitySpace> profiles = new ArrayList<>();
+		for (int j = 0; j < scenario.size(); j++) {
+			parties.add(agents.get((i + j) % agents.size()).get());
+			profiles.add(scenario.getProfile(j));
+		}
+		return new LocalSession(parties, profiles, deadline, i);
+	}
+
+	static long percentile(long[] sorted, double p) {
+		return sorted[Math.min(sorted.length - 1, (int) Math.floor(p * sorted.length))];
+	}
+}
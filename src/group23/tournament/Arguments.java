@@ -0,0 +1,62 @@
+package group23.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line arguments of the form key=value.
+ */
+public class Arguments {
+	private final Map<String, String> values = new HashMap<>();
+
+	public Arguments(String... args) {
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split <= 0) throw new IllegalArgumentException("Expected key=value but got " + arg);
+			values.put(arg.substring(0, split), arg.substring(split + 1));
+		}
+	}
+
+	/**
+	 * Set or replace an argument, for tools that fill some in
+	 */
+	public void put(String key, String value) {
+		values.put(key, value);
+	}
+
+	public boolean has(String key) {
+		return values.containsKey(key);
+	}
+
+	public String get(String key) {
+		String value = values.get(key);
+		if (value == null) throw new IllegalArgumentException("Missing argument " + key + "=...");
+		return value;
+	}
+
+	public String get(String key, String fallback) {
+		return values.getOrDefault(key, fallback);
+	}
+
+	public int getInt(String key, int fallback) {
+		return has(key) ? Integer.parseInt(get(key)) : fallback;
+	}
+
+	public long getLong(String key, long fallback) {
+		return has(key) ? Long.parseLong(get(key)) : fallback;
+	}
+
+	public double getDouble(String key, double fallback) {
+		return has(key) ? Double.parseDouble(get(key)) : fallback;
+	}
+
+	/**
+	 * Comma separated list
+	 */
+	public List<String> getList(String key) {
+		return new ArrayList<>(Arrays.asList(get(key).split(",")));
+	}
+}
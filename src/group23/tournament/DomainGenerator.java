@@ -0,0 +1,185 @@
+package group23.tournament;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic domains and profiles in the same XML format as the templates (see Domain4), for scaling runs.
+ *
+ * Issues are discrete, named a, b, ... z, a2, b2, ... with values a1, a2, ... Evaluations are whole numbers from 1
+ * to 10 like the templates. Conflict says how much the parties disagree on values: 0 gives everybody the same
+ * preferences, 0.5 independent ones and 1 spreads the parties as far apart as they go. Weights are uniform,
+ * random, or skewed (halving from issue to issue in a random order) per party. The same seed writes the same files.
+ *
+ * Any of the benchmark or tournament mains take issues=N (plus the other keys below) in place of domain and
+ * profiles, e.g.
+ * java group23.bench.SessionLoad issues=12 values=6 parties=3 conflict=0.7 seed=1 sessions=1000
+ * java group23.tournament.DomainGenerator issues=12 values=4-8 parties=3 conflict=0.7 weights=skewed seed=1 out=domains
+ */
+public class DomainGenerator {
+	public enum Weights {UNIFORM, RANDOM, SKEWED}
+
+	private final int issues;
+	private final int minValues, maxValues;
+	private final int parties;
+	private final double conflict;
+	private final Weights weights;
+	private final long seed;
+	private double discount = 1;
+	private double reservation = 0;
+
+	public DomainGenerator(int issues, int minValues, int maxValues, int parties, double conflict, Weights weights, long seed) {
+		if (issues < 1 || minValues < 2 || maxValues < minValues || parties < 2) throw new IllegalArgumentException("Need an issue, two values an issue and two parties");
+		if (conflict < 0 || conflict > 1) throw new IllegalArgumentException("Conflict must be from 0 to 1");
+		this.issues = issues;
+		this.minValues = minValues;
+		this.maxValues = maxValues;
+		this.parties = parties;
+		this.conflict = conflict;
+		this.weights = weights;
+		this.seed = seed;
+	}
+
+	public DomainGenerator setDiscount(double discount) {
+		this.discount = discount;
+		return this;
+	}
+
+	public DomainGenerator setReservation(double reservation) {
+		this.reservation = reservation;
+		return this;
+	}
+
+	public String getName() {
+		return String.format(Locale.ROOT, "Synthetic-i%d-v%s-p%d-c%.2f-%s-s%d", issues, minValues == maxValues ? Integer.toString(minValues) : minValues + "_" + maxValues, parties, conflict, weights.name().toLowerCase(Locale.ROOT), seed);
+	}
+
+	/**
+	 * Write the domain and one profile per party into directory/name, returns the profile files with the domain first
+	 */
+	public List<File> write(File directory) throws IOException {
+		SplittableRandom random = new SplittableRandom(seed);
+		File folder = new File(directory, getName());
+		if (!folder.isDirectory() && !folder.mkdirs()) throw new IOException("Can't create " + folder);
+
+		// Shared base preferences, conflict pulls each party away from them
+		int[] sizes = new int[issues];
+		double[][] base = new double[issues][];
+		for (int i = 0; i < issues; i++) {
+			sizes[i] = minValues + random.nextInt(maxValues - minValues + 1);
+			base[i] = new double[sizes[i]];
+			for (int v = 0; v < sizes[i]; v++) base[i][v] = random.nextDouble();
+		}
+
+		List<File> files = new ArrayList<>();
+		File domain = new File(folder, getName() + ".xml");
+		try (PrintWriter out = new PrintWriter(domain, StandardCharsets.UTF_8.name())) {
+			out.print("<negotiation_template> \n");
+			out.print("<utility_space number_of_issues=\"" + issues + "\"> \n");
+			out.print("<objective index=\"0\" description=\"\" name=\"" + getName() + "\" type=\"objective\" etype=\"objective\"> \n");
+			for (int i = 0; i < issues; i++) {
+				out.print("<issue index=\"" + (i + 1) + "\" name=\"" + issue(i) + "\" vtype=\"discrete\" type=\"discrete\" etype=\"discrete\"> \n");
+				for (int v = 0; v < sizes[i]; v++) out.print("<item index=\"" + (v + 1) + "\" value=\"" + issue(i) + (v + 1) + "\"> \n</item> \n");
+				out.print("</issue> \n");
+			}
+			out.print("</objective> \n</utility_space> \n</negotiation_template> \n");
+		}
+		files.add(domain);
+
+		for (int p = 0; p < parties; p++) {
+			File profile = new File(folder, getName() + "_util" + (p + 1) + ".xml");
+			double[] weight = weights(random);
+			try (PrintWriter out = new PrintWriter(profile, StandardCharsets.UTF_8.name())) {
+				out.print("<utility_space> \n");
+				out.print("<objective index=\"0\" description=\"\" name=\"" + getName() + "\" type=\"objective\" etype=\"objective\"> \n");
+				for (int i = 0; i < issues; i++) {
+					out.print("<issue index=\"" + (i + 1) + "\" name=\"" + issue(i) + "\" vtype=\"discrete\" type=\"discrete\" etype=\"discrete\"> \n");
+					for (int v = 0; v < sizes[i]; v++) {
+						int evaluation = 1 + (int) Math.round(9 * preference(base[i][v], p, random));
+						out.print("<item index=\"" + (v + 1) + "\" value=\"" + issue(i) + (v + 1) + "\" evaluation=\"" + evaluation + "\"> \n</item> \n");
+					}
+					out.print("</issue> \n");
+				}
+				for (int i = 0; i < issues; i++) out.print("<weight index=\"" + (i + 1) + "\" value=\"" + weight[i] + "\"> \n</weight> \n");
+				out.print("</objective> \n");
+				out.print("<discount_factor value=\"" + discount + "\"> \n</discount_factor> \n");
+				out.print("<reservation value=\"" + reservation + "\"> \n</reservation> \n");
+				out.print("</utility_space> \n");
+			}
+			files.add(profile);
+		}
+		return files;
+	}
+
+	/**
+	 * a to z, then a2 to z2 and so on
+	 */
+	private static String issue(int index) {
+		return (char) ('a' + index % 26) + (index >= 26 ? Integer.toString(index / 26 + 1) : "");
+	}
+
+	/**
+	 * From the shared preference at no conflict, through an independent one, to this party's share of the circle
+	 */
+	private double preference(double shared, int party, SplittableRandom random) {
+		double independent = random.nextDouble();
+		double opposed = (shared + (double) party / parties) % 1;
+		return conflict <= 0.5 ? shared + 2 * conflict * (independent - shared) : independent + (2 * conflict - 1) * (opposed - independent);
+	}
+
+	private double[] weights(SplittableRandom random) {
+		double[] weight = new double[issues];
+		double total = 0;
+		for (int i = 0; i < issues; i++) {
+			switch (weights) {
+				case UNIFORM: weight[i] = 1; break;
+				case RANDOM: weight[i] = random.nextDouble() + 1e-3; break;
+				case SKEWED: weight[i] = Math.pow(0.5, i); break;
+			}
+			total += weight[i];
+		}
+
+		// Shuffle so the heavy issues aren't always first
+		for (int i = issues - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			double swap = weight[i];
+			weight[i] = weight[j];
+			weight[j] = swap;
+		}
+		for (int i = 0; i < issues; i++) weight[i] /= total;
+		return weight;
+	}
+
+	/**
+	 * If the arguments ask for a synthetic domain with issues=N, write it and point domain and profiles at it
+	 */
+	public static void apply(Arguments arguments) throws IOException {
+		if (!arguments.has("issues")) return;
+
+		String[] values = arguments.get("values", "5").split("-");
+		DomainGenerator generator = new DomainGenerator(arguments.getInt("issues", 0), Integer.parseInt(values[0]), Integer.parseInt(values[values.length - 1]),
+				arguments.getInt("parties", Scenario.PARTIES), arguments.getDouble("conflict", 0.5), Weights.valueOf(arguments.get("weights", "random").toUpperCase(Locale.ROOT)), arguments.getLong("seed", 23))
+				.setDiscount(arguments.getDouble("discount", 1))
+				.setReservation(arguments.getDouble("reservation", 0));
+
+		List<File> files = generator.write(new File(arguments.get("out", System.getProperty("java.io.tmpdir"))));
+		StringBuilder profiles = new StringBuilder();
+		for (int i = 1; i < files.size(); i++) profiles.append(i > 1 ? "," : "").append(files.get(i).getPath());
+		arguments.put("domain", files.get(0).getPath());
+		arguments.put("profiles", profiles.toString());
+	}
+
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		if (!arguments.has("issues")) throw new IllegalArgumentException("Missing argument issues=...");
+		apply(arguments);
+		System.out.println(arguments.get("domain"));
+		for (String profile : arguments.getList("profiles")) System.out.println(profile);
+	}
+}
@@ -0,0 +1,120 @@
+package group23.tournament;
+
+import negotiator.AgentID;
+import negotiator.Bid;
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.actions.*;
+import negotiator.parties.NegotiationInfo;
+import negotiator.parties.NegotiationParty;
+import negotiator.persistent.DefaultPersistentDataContainer;
+import negotiator.persistent.PersistentDataContainer;
+import negotiator.persistent.PersistentDataType;
+import negotiator.timeline.ContinuousTimeline;
+import negotiator.timeline.DiscreteTimeline;
+import negotiator.timeline.Timeline;
+import negotiator.utility.AbstractUtilitySpace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Local stand-in for the Stacked Alternating Offers Protocol, so we can run sessions without the Genius GUI.
+ *
+ * Parties take turns in order. The first turn must be an offer, after that each party accepts the offer on the
+ * table, makes a new one or walks away. The session ends in agreement once everybody else has accepted the
+ * current offer, or without one at the deadline, on an EndNegotiation, an invalid action or a crash.
+ */
+public class LocalSession implements Callable<SessionResult> {
+	private static final List<Class<? extends Action>> OPENING = Collections.<Class<? extends Action>>singletonList(Offer.class);
+	private static final List<Class<? extends Action>> RESPONSES = Collections.unmodifiableList(Arrays.<Class<? extends Action>>asList(Accept.class, Offer.class, EndNegotiation.class));
+
+	private final List<NegotiationParty> parties;
+	private final List<AbstractUtilitySpace> profiles;
+	private final Deadline deadline;
+	private final long seed;
+
+	public LocalSession(List<? extends NegotiationParty> parties, List<? extends AbstractUtilitySpace> profiles, Deadline deadline, long seed) {
+		if (parties.size() != profiles.size()) throw new IllegalArgumentException("Need one profile per party");
+		if (parties.size() < 2) throw new IllegalArgumentException("Need at least two parties");
+		this.parties = new ArrayList<>(parties);
+		this.profiles = new ArrayList<>(profiles);
+		this.deadline = deadline;
+		this.seed = seed;
+	}
+
+	@Override
+	public SessionResult call() {
+		long start = System.nanoTime();
+		Timeline timeline = deadline.getType() == DeadlineType.ROUND ? new DiscreteTimeline(deadline.getValue()) : new ContinuousTimeline(deadline.getValue());
+
+		List<String> names = new ArrayList<>();
+		List<AgentID> ids = new ArrayList<>();
+		for (int i = 0; i < parties.size(); i++) {
+			names.add(parties.get(i).getClass().getName());
+			ids.add(new AgentID(parties.get(i).getClass().getSimpleName() + "@" + i));
+		}
+
+		Bid offer = null, agreement = null;
+		int accepts = 0, rounds = 0;
+		String error = null;
+
+		try {
+			for (int i = 0; i < parties.size(); i++) {
+				PersistentDataContainer storage = new DefaultPersistentDataContainer(null, PersistentDataType.DISABLED);
+				parties.get(i).init(new NegotiationInfo(profiles.get(i), deadline, timeline, seed + i, ids.get(i), storage));
+			}
+
+			session:
+			while (!timeline.isDeadlineReached()) {
+				for (int i = 0; i < parties.size(); i++) {
+					List<Class<? extends Action>> valid = offer == null ? OPENING : RESPONSES;
+					Action action = parties.get(i).chooseAction(valid);
+
+					if (action == null || !valid.contains(action.getClass())) {
+						error = ids.get(i) + " made an invalid action " + action;
+						break session;
+					}
+
+					// Everybody else gets to hear about it
+					for (int j = 0; j < parties.size(); j++) {
+						if (j != i) parties.get(j).receiveMessage(ids.get(i), action);
+					}
+
+					if (action instanceof EndNegotiation) {
+						break session;
+					} else if (action instanceof Offer) {
+						offer = ((Offer) action).getBid();
+						accepts = 0;
+					} else if (++accepts == parties.size() - 1) {
+						agreement = offer;
+						break session;
+					}
+				}
+
+				++rounds;
+				if (timeline instanceof DiscreteTimeline) ((DiscreteTimeline) timeline).increment();
+			}
+		} catch (Exception e) {
+			error = e.toString();
+		}
+
+		double time = timeline.getTime();
+		double[] utilities = new double[parties.size()];
+		for (int i = 0; i < parties.size(); i++) {
+			AbstractUtilitySpace profile = profiles.get(i);
+			utilities[i] = agreement != null ? profile.discount(profile.getUtility(agreement), time) : profile.getReservationValueUndiscounted();
+
+			try {
+				parties.get(i).negotiationEnded(agreement);
+			} catch (Exception e) {
+				if (error == null) error = e.toString();
+			}
+		}
+
+		return new SessionResult(names, agreement, utilities, rounds, System.nanoTime() - start, error);
+	}
+}
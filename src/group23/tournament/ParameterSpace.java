@@ -0,0 +1,97 @@
+package group23.tournament;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Ranges for the agent's tuning knobs, to build grids or random samples of configurations from.
+ */
+public class ParameterSpace {
+	private final List<Dimension> dimensions = new ArrayList<>();
+
+	/**
+	 * The knobs Agent23 exposes, around the values we tuned by hand
+	 */
+	public static ParameterSpace agent23() {
+		return new ParameterSpace()
+				.withLog("stubbornness", 1_000, 100_000)
+				.with("minimumUtility", 0.2, 0.8)
+				.with("frequencyMultiplier", 1, 10)
+				.with("randomFrequency", 10, 100)
+				.with("issueBias", 1, 2);
+	}
+
+	/**
+	 * Add a knob that is sampled evenly between low and high
+	 */
+	public ParameterSpace with(String name, double low, double high) {
+		dimensions.add(new Dimension(name, low, high, false));
+		return this;
+	}
+
+	/**
+	 * Add a knob that is sampled evenly on a log scale, for things like stubbornness that span magnitudes
+	 */
+	public ParameterSpace withLog(String name, double low, double high) {
+		if (low <= 0) throw new IllegalArgumentException("Log scale needs a positive range for " + name);
+		dimensions.add(new Dimension(name, low, high, true));
+		return this;
+	}
+
+	/**
+	 * Every combination of steps values per knob, steps^knobs configurations
+	 */
+	public List<Map<String, Double>> grid(int steps) {
+		List<Map<String, Double>> configurations = new ArrayList<>();
+		configurations.add(new LinkedHashMap<>());
+
+		for (Dimension dimension : dimensions) {
+			List<Map<String, Double>> next = new ArrayList<>();
+			for (Map<String, Double> configuration : configurations) {
+				for (int i = 0; i < steps; i++) {
+					Map<String, Double> copy = new LinkedHashMap<>(configuration);
+					copy.put(dimension.name, dimension.at(steps == 1 ? 0.5 : (double) i / (steps - 1)));
+					next.add(copy);
+				}
+			}
+			configurations = next;
+		}
+		return configurations;
+	}
+
+	/**
+	 * Count configurations drawn uniformly at random
+	 */
+	public List<Map<String, Double>> sample(int count, SplittableRandom random) {
+		List<Map<String, Double>> configurations = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Map<String, Double> configuration = new LinkedHashMap<>();
+			for (Dimension dimension : dimensions) configuration.put(dimension.name, dimension.at(random.nextDouble()));
+			configurations.add(configuration);
+		}
+		return configurations;
+	}
+
+	private static class Dimension {
+		private final String name;
+		private final double low, high;
+		private final boolean log;
+
+		Dimension(String name, double low, double high, boolean log) {
+			this.name = name;
+			this.low = low;
+			this.high = high;
+			this.log = log;
+		}
+
+		/**
+		 * Value at t in [0, 1] along the range
+		 */
+		double at(double t) {
+			return log ? Math.exp(Math.log(low) + t * (Math.log(high) - Math.log(low))) : low + t * (high - low);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package group23.tournament;
+
+import group23.Agent23;
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.parties.NegotiationParty;
+import negotiator.utility.AbstractUtilitySpace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Tunes Agent23 by playing configurations against an opponent pool, in parallel, with successive halving.
+ *
+ * Every configuration starts with a few sessions, then only the best 1/eta of them go on to the next rung where
+ * the number of sessions is multiplied by eta. Session i is the same for every configuration (same scenario, seat,
+ * opponents and seed) so they are compared on equal terms, and sessions played on an earlier rung are kept.
+ *
+ * Run with -Dgroup23.quiet=true, e.g.
+ * java -Dgroup23.quiet=true group23.tournament.ParameterSweep domain=party_domain.xml profiles=party1_utility.xml,...
+ *     parties=3 opponents=agents.anac.y2015.group2.Group2,... rounds=180 samples=81
+ */
+public class ParameterSweep {
+	private final List<Scenario> scenarios;
+	private final List<? extends Supplier<? extends NegotiationParty>> opponents;
+	private final Deadline deadline;
+	private final int threads;
+	private final long seed;
+
+	private Supplier<? extends Agent23> agent = Agent23::new;
+	private int eta = 3;
+	private int initialSessions = 4;
+	private int sessionsRun = 0;
+
+	public ParameterSweep(List<Scenario> scenarios, List<? extends Supplier<? extends NegotiationParty>> opponents, Deadline deadline, int threads, long seed) {
+		if (scenarios.isEmpty() || opponents.isEmpty()) throw new IllegalArgumentException("Need scenarios and opponents");
+		this.scenarios = new ArrayList<>(scenarios);
+		this.opponents = new ArrayList<>(opponents);
+		this.deadline = deadline;
+		this.threads = threads;
+		this.seed = seed;
+	}
+
+	/**
+	 * Which agent to tune, Agent23 by default
+	 */
+	public ParameterSweep setAgent(Supplier<? extends Agent23> agent) {
+		this.agent = agent;
+		return this;
+	}
+
+	/**
+	 * Keep the best 1/eta configurations on every rung
+	 */
+	public ParameterSweep setEta(int eta) {
+		if (eta < 2) throw new IllegalArgumentException("eta must be at least 2");
+		this.eta = eta;
+		return this;
+	}
+
+	/**
+	 * Sessions every configuration plays on the first rung
+	 */
+	public ParameterSweep setInitialSessions(int initialSessions) {
+		this.initialSessions = Math.max(1, initialSessions);
+		return this;
+	}
+
+	/**
+	 * Sessions played by the last run
+	 */
+	public int getSessionsRun() {
+		return sessionsRun;
+	}
+
+	/**
+	 * Sessions the final configuration plays, which is what every configuration would play without pruning
+	 */
+	public int getFinalSessions(int configurations) {
+		int sessions = initialSessions;
+		for (int survivors = configurations; survivors > 1; survivors = (survivors + eta - 1) / eta) sessions *= eta;
+		return sessions;
+	}
+
+	/**
+	 * Run successive halving over the configurations, best first. Candidates dropped early keep their score at the
+	 * rung they were dropped on.
+	 */
+	public List<Candidate> run(List<Map<String, Double>> configurations) throws Exception {
+		List<Candidate> all = new ArrayList<>();
+		for (Map<String, Double> configuration : configurations) all.add(new Candidate(configuration));
+
+		List<Candidate> survivors = new ArrayList<>(all);
+		sessionsRun = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			int budget = initialSessions;
+			while (true) {
+				// Play the sessions this rung adds, for every survivor, all at once
+				List<Future<Double>> futures = new ArrayList<>();
+				List<Candidate> owners = new ArrayList<>();
+				for (Candidate candidate : survivors) {
+					for (int i = candidate.sessions; i < budget; i++) {
+						final int index = i;
+						futures.add(executor.submit(() -> play(candidate.parameters, index)));
+						owners.add(candidate);
+					}
+				}
+				for (int i = 0; i < futures.size(); i++) owners.get(i).add(futures.get(i).get());
+				sessionsRun += futures.size();
+
+				survivors.sort(Comparator.comparingDouble(Candidate::getScore).reversed());
+				if (survivors.size() == 1) break;
+
+				survivors = new ArrayList<>(survivors.subList(0, (survivors.size() + eta - 1) / eta));
+				budget *= eta;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Best first, further rungs beat earlier ones
+		all.sort(Comparator.comparingInt(Candidate::getSessions).thenComparingDouble(Candidate::getScore).reversed());
+		return all;
+	}
+
+	/**
+	 * Play session index with our agent configured with the parameters, returns our utility
+	 */
+	protected double play(Map<String, Double> parameters, int index) {
+		// Same draw for every configuration
+		SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+		Scenario scenario = scenarios.get(index % scenarios.size());
+		int seat = (index / scenarios.size()) % scenario.size();
+
+		List<NegotiationParty> parties = new ArrayList<>();
+		List<AbstractUtilitySpace> profiles = new ArrayList<>();
+		for (int i = 0; i < scenario.size(); i++) {
+			if (i == seat) {
+				Agent23 agent = this.agent.get();
+				agent.setParameters(parameters);
+				parties.add(agent);
+			} else {
+				parties.add(opponents.get(random.nextInt(opponents.size())).get());
+			}
+			profiles.add(scenario.getProfile(i));
+		}
+
+		return new LocalSession(parties, profiles, deadline, random.nextLong()).call().getUtility(seat);
+	}
+
+	/**
+	 * A configuration and how well it has done so far
+	 */
+	public static class Candidate {
+		private final Map<String, Double> parameters;
+		private double total = 0;
+		private int sessions = 0;
+
+		Candidate(Map<String, Double> parameters) {
+			this.parameters = Collections.unmodifiableMap(parameters);
+		}
+
+		void add(double utility) {
+			total += utility;
+			++sessions;
+		}
+
+		public Map<String, Double> getParameters() {
+			return parameters;
+		}
+
+		/**
+		 * Mean utility over the sessions played
+		 */
+		public double getScore() {
+			return sessions == 0 ? 0 : total / sessions;
+		}
+
+		public int getSessions() {
+			return sessions;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.4f over %d sessions %s", getScore(), sessions, parameters);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+		long seed = arguments.getLong("seed", 23);
+
+		DomainGenerator.apply(arguments);
+		List<Scenario> scenarios = Scenario.split(arguments.get("domain"), arguments.getList("profiles"), arguments.getInt("parties", Scenario.PARTIES));
+		Deadline deadline = arguments.has("seconds") ? new Deadline(arguments.getInt("seconds", 0), DeadlineType.TIME) : new Deadline(arguments.getInt("rounds", 180), DeadlineType.ROUND);
+
+		ParameterSpace space = ParameterSpace.agent23();
+		List<Map<String, Double>> configurations = arguments.has("grid") ? space.grid(arguments.getInt("grid", 3)) : space.sample(arguments.getInt("samples", 81), new SplittableRandom(seed));
+
+		ParameterSweep sweep = new ParameterSweep(scenarios, Parties.byName(arguments.getList("opponents")), deadline, arguments.getInt("threads", Runtime.getRuntime().availableProcessors()), seed)
+				.setEta(arguments.getInt("eta", 3))
+				.setInitialSessions(arguments.getInt("initial", 4));
+
+		long start = System.nanoTime();
+		List<Candidate> results = sweep.run(configurations);
+		long exhaustive = (long) configurations.size() * sweep.getFinalSessions(configurations.size());
+
+		for (int i = 0; i < Math.min(10, results.size()); i++) System.out.println((i + 1) + ". " + results.get(i));
+		System.out.println(String.format("%d sessions in %.1fs, exhaustive would have been %d (%.1fx)", sweep.getSessionsRun(), (System.nanoTime() - start) / 1e9, exhaustive, (double) exhaustive / sweep.getSessionsRun()));
+	}
+}
@@ -0,0 +1,38 @@
+package group23.tournament;
+
+import negotiator.parties.NegotiationParty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Creates fresh parties by class name, the same way the tournament configuration names them.
+ */
+public final class Parties {
+	private Parties() {
+	}
+
+	public static Supplier<NegotiationParty> byName(String className) {
+		Class<? extends NegotiationParty> type;
+		try {
+			type = Class.forName(className).asSubclass(NegotiationParty.class);
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IllegalArgumentException("Not a negotiation party: " + className, e);
+		}
+
+		return () -> {
+			try {
+				return type.getConstructor().newInstance();
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Failed to create " + className, e);
+			}
+		};
+	}
+
+	public static List<Supplier<NegotiationParty>> byName(List<String> classNames) {
+		List<Supplier<NegotiationParty>> suppliers = new ArrayList<>();
+		for (String className : classNames) suppliers.add(byName(className));
+		return suppliers;
+	}
+}
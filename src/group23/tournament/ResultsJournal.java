@@ -0,0 +1,187 @@
+package group23.tournament;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of finished sessions, one tab separated line each, so a tournament can pick up where it stopped.
+ *
+ * Every line ends in a "." field and is flushed as soon as it's written. A line cut off by a crash has no "." and
+ * is skipped when reading, that session is simply played again. So is a session that failed: its entry is kept, with
+ * the error, but a later entry for the same key without an error wins over it.
+ */
+public class ResultsJournal implements Closeable {
+	private static final String END = ".";
+
+	private final File file;
+	private final BufferedWriter writer;
+
+	/**
+	 * One finished session, as read back from a journal
+	 */
+	public static class Entry {
+		private final String key;
+		private final List<String> parties;
+		private final boolean agreement;
+		private final double[] utilities;
+		private final int rounds;
+		private final long nanos;
+		private final String error;
+
+		Entry(String key, SessionResult result) {
+			this(key, result.getParties(), result.isAgreement(), result.getUtilities(), result.getRounds(), result.getNanos(), result.getError());
+		}
+
+		Entry(String key, List<String> parties, boolean agreement, double[] utilities, int rounds, long nanos, String error) {
+			this.key = key;
+			this.parties = Collections.unmodifiableList(new ArrayList<>(parties));
+			this.agreement = agreement;
+			this.utilities = utilities.clone();
+			this.rounds = rounds;
+			this.nanos = nanos;
+			this.error = error;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public List<String> getParties() {
+			return parties;
+		}
+
+		public boolean isAgreement() {
+			return agreement;
+		}
+
+		public double getUtility(int party) {
+			return utilities[party];
+		}
+
+		public int getRounds() {
+			return rounds;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+		public String getError() {
+			return error;
+		}
+
+		String toLine() {
+			StringBuilder utilities = new StringBuilder();
+			for (int i = 0; i < this.utilities.length; i++) utilities.append(i > 0 ? "," : "").append(this.utilities[i]);
+			return String.join("\t", key, String.join(",", parties), Boolean.toString(agreement), utilities, Integer.toString(rounds), Long.toString(nanos),
+					error != null ? error.replaceAll("[\t\r\n]", " ") : "", END);
+		}
+
+		/**
+		 * Null for a line that was cut off or isn't ours
+		 */
+		static Entry parse(String line) {
+			String[] fields = line.split("\t", -1);
+			if (fields.length != 8 || !fields[7].equals(END)) return null;
+			try {
+				String[] values = fields[3].split(",");
+				double[] utilities = new double[values.length];
+				for (int i = 0; i < values.length; i++) utilities[i] = Double.parseDouble(values[i]);
+				return new Entry(fields[0], Arrays.asList(fields[1].split(",")), Boolean.parseBoolean(fields[2]), utilities, Integer.parseInt(fields[4]), Long.parseLong(fields[5]), fields[6].isEmpty() ? null : fields[6]);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Open a journal to append to, creating it if needed
+	 */
+	public ResultsJournal(File file) throws IOException {
+		this.file = file;
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs()) throw new IOException("Can't create " + parent);
+
+		// A line cut off by a crash would swallow our first one, start on a fresh line
+		boolean torn = false;
+		if (file.length() > 0) {
+			try (RandomAccessFile last = new RandomAccessFile(file, "r")) {
+				last.seek(last.length() - 1);
+				torn = last.read() != '\n';
+			}
+		}
+		writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		if (torn) {
+			writer.newLine();
+			writer.flush();
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public synchronized void append(String key, SessionResult result) throws IOException {
+		writer.write(new Entry(key, result).toLine());
+		writer.newLine();
+		writer.flush();
+	}
+
+	/**
+	 * Every complete entry in the journals by key. If a key turns up twice the first one wins, unless it failed and a
+	 * later one didn't
+	 */
+	public static Map<String, Entry> read(Collection<File> files) throws IOException {
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		for (File file : files) {
+			if (!file.exists()) continue;
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				for (String line; (line = reader.readLine()) != null; ) {
+					Entry entry = Entry.parse(line);
+					if (entry != null) entries.merge(entry.getKey(), entry, (first, later) -> first.getError() != null && later.getError() == null ? later : first);
+				}
+			}
+		}
+		return entries;
+	}
+
+	public static Map<String, Entry> read(File file) throws IOException {
+		return read(Collections.singletonList(file));
+	}
+
+	/**
+	 * Write the entries of several journals, say one per shard, into one
+	 */
+	public static Map<String, Entry> merge(Collection<File> files, File into) throws IOException {
+		Map<String, Entry> entries = read(files);
+		File temporary = new File(into.getPath() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temporary.toPath(), StandardCharsets.UTF_8)) {
+			for (Entry entry : entries.values()) {
+				writer.write(entry.toLine());
+				writer.newLine();
+			}
+		}
+		Files.move(temporary.toPath(), into.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return entries;
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+}
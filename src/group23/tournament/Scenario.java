@@ -0,0 +1,79 @@
+package group23.tournament;
+
+import negotiator.Domain;
+import negotiator.DomainImpl;
+import negotiator.utility.AdditiveUtilitySpace;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A domain and the preference profiles negotiating over it, one profile per party.
+ * Profiles are loaded once and then only read, so sessions running in parallel can share a scenario.
+ */
+public class Scenario {
+	/**
+	 * Parties per session unless parties= says otherwise, three like multilateraltournament.xml
+	 */
+	public static final int PARTIES = 3;
+
+	private final String name;
+	private final Domain domain;
+	private final List<String> profileFiles;
+	private final List<AdditiveUtilitySpace> profiles;
+
+	public Scenario(String domainFile, List<String> profileFiles) throws Exception {
+		this.domain = new DomainImpl(domainFile);
+		this.profileFiles = Collections.unmodifiableList(new ArrayList<>(profileFiles));
+
+		List<AdditiveUtilitySpace> profiles = new ArrayList<>();
+		for (String profileFile : profileFiles) profiles.add(new AdditiveUtilitySpace(domain, profileFile));
+		this.profiles = Collections.unmodifiableList(profiles);
+
+		StringBuilder builder = new StringBuilder(new File(domainFile).getName());
+		for (String profileFile : profileFiles) builder.append(File.pathSeparator).append(new File(profileFile).getName());
+		this.name = builder.toString();
+	}
+
+	/**
+	 * Split a list of profiles on one domain into scenarios of the given number of parties each
+	 */
+	public static List<Scenario> split(String domainFile, List<String> profileFiles, int parties) throws Exception {
+		List<Scenario> scenarios = new ArrayList<>();
+		for (int i = 0; i + parties <= profileFiles.size(); i += parties) {
+			scenarios.add(new Scenario(domainFile, profileFiles.subList(i, i + parties)));
+		}
+		if (scenarios.isEmpty()) throw new IllegalArgumentException("Need at least " + parties + " profiles");
+		return scenarios;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Domain getDomain() {
+		return domain;
+	}
+
+	public List<String> getProfileFiles() {
+		return profileFiles;
+	}
+
+	public AdditiveUtilitySpace getProfile(int index) {
+		return profiles.get(index);
+	}
+
+	/**
+	 * Number of parties in this scenario
+	 */
+	public int size() {
+		return profiles.size();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
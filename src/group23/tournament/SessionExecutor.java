@@ -0,0 +1,146 @@
+package group23.tournament;
+
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs local sessions concurrently on a bounded amount of CPU: a pool of platform threads, or a virtual thread per
+ * session when the JVM has them (Java 21+).
+ *
+ * LocalSession plays every party's turn inline on its session's thread and never waits between turns, so a session
+ * is CPU work from start to end. Virtual threads aren't time-sliced, so a session keeps its carrier thread until it
+ * finishes unless a party blocks (Agent23's watchdog waiting out its turn, say), and either way only about one
+ * session per core makes progress at a time and getMaxInFlight() stays near the core count. What virtual threads
+ * save is the platform threads. Sessions submitted as suppliers are only created when they start, so the ones
+ * still waiting cost next to nothing in either mode.
+ *
+ * Only round deadlines get virtual threads. A time deadline's clock runs from the moment the session starts, so
+ * starting every session at once would share the CPU out between them and give each agent a fraction of its time,
+ * those get a platform thread per core.
+ */
+public class SessionExecutor implements AutoCloseable {
+	private final ExecutorService executor;
+	private final boolean virtual;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private SessionExecutor(ExecutorService executor, boolean virtual) {
+		this.executor = executor;
+		this.virtual = virtual;
+	}
+
+	/**
+	 * Virtual threads if we can and the deadline counts rounds, otherwise a platform thread per core
+	 */
+	public static SessionExecutor create(Deadline deadline) {
+		return isVirtualSupported() && deadline.getType() == DeadlineType.ROUND ? virtual() : platform(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The executor for mode=auto, virtual or platform, with threads platform threads. Throws if virtual threads are
+	 * asked for with a time deadline.
+	 */
+	public static SessionExecutor create(String mode, int threads, Deadline deadline) {
+		switch (mode) {
+			case "auto": return create(deadline);
+			case "platform": return platform(threads);
+			case "virtual":
+				if (deadline.getType() != DeadlineType.ROUND) throw new IllegalArgumentException("Virtual threads are only for round deadlines, time deadlines would share the CPU out");
+				return virtual();
+			default: throw new IllegalArgumentException("Unknown mode " + mode);
+		}
+	}
+
+	public static SessionExecutor virtual() {
+		try {
+			return new SessionExecutor((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null), true);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or newer", e);
+		}
+	}
+
+	public static SessionExecutor platform(int threads) {
+		return new SessionExecutor(Executors.newFixedThreadPool(threads), false);
+	}
+
+	public static boolean isVirtualSupported() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public Future<SessionResult> submit(LocalSession session) {
+		return submit(session, result -> {});
+	}
+
+	/**
+	 * Run the session and hand its result to done, on the session's thread as soon as it finishes
+	 */
+	public Future<SessionResult> submit(LocalSession session, Consumer<SessionResult> done) {
+		return submit(() -> session, done);
+	}
+
+	/**
+	 * Create the session when a thread is free to run it, so its parties only exist while it's being played
+	 */
+	public Future<SessionResult> submit(Supplier<LocalSession> session, Consumer<SessionResult> done) {
+		return executor.submit(() -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				SessionResult result = session.get().call();
+				done.accept(result);
+				return result;
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		});
+	}
+
+	/**
+	 * Run all sessions and wait for them, results in the same order
+	 */
+	public List<SessionResult> runAll(List<LocalSession> sessions) throws InterruptedException, ExecutionException {
+		List<Future<SessionResult>> futures = new ArrayList<>();
+		for (LocalSession session : sessions) futures.add(submit(session));
+
+		List<SessionResult> results = new ArrayList<>();
+		for (Future<SessionResult> future : futures) results.add(future.get());
+		return results;
+	}
+
+	/**
+	 * Sessions running right now
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Most sessions that were ever running at the same time
+	 */
+	public int getMaxInFlight() {
+		return maxInFlight.get();
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,81 @@
+package group23.tournament;
+
+import negotiator.Bid;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a single local session.
+ */
+public class SessionResult implements Serializable {
+	private final List<String> parties;
+	private final Bid agreement;
+	private final double[] utilities;
+	private final int rounds;
+	private final long nanos;
+	private final String error;
+
+	public SessionResult(List<String> parties, Bid agreement, double[] utilities, int rounds, long nanos, String error) {
+		this.parties = Collections.unmodifiableList(parties);
+		this.agreement = agreement;
+		this.utilities = utilities.clone();
+		this.rounds = rounds;
+		this.nanos = nanos;
+		this.error = error;
+	}
+
+	/**
+	 * Names of the parties, in turn order
+	 */
+	public List<String> getParties() {
+		return parties;
+	}
+
+	public boolean isAgreement() {
+		return agreement != null;
+	}
+
+	/**
+	 * The agreed bid, or null if there was no agreement
+	 */
+	public Bid getAgreement() {
+		return agreement;
+	}
+
+	/**
+	 * Discounted utility party i got, its reservation value without an agreement
+	 */
+	public double getUtility(int party) {
+		return utilities[party];
+	}
+
+	public double[] getUtilities() {
+		return utilities.clone();
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Wall clock time of the whole session, including init
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * Why the session was cut short, null if it ran normally
+	 */
+	public String getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return "SessionResult[" + parties + ", agreement=" + isAgreement() + ", utilities=" + Arrays.toString(utilities) + ", rounds=" + rounds + (error != null ? ", error=" + error : "") + "]";
+	}
+}
@@ -0,0 +1,203 @@
+package group23.tournament;
+
+import negotiator.Deadline;
+import negotiator.DeadlineType;
+import negotiator.parties.NegotiationParty;
+import negotiator.utility.AbstractUtilitySpace;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Local tournament: every ordering of the agents on every scenario, repeated, that can be stopped and resumed.
+ *
+ * Finished sessions go to a ResultsJournal, and on start every session already in the journal without an error is
+ * skipped. A session's key names what it plays: the scenario's domain and profile files, the agents' classes in seat
+ * order, the deadline, the seed and the repeat, and its seed comes from its key. A restart with agents= or profiles=
+ * reordered still skips the right sessions, and one with anything changed plays the changed sessions again rather
+ * than taking old results for them. Sessions can also be split across JVMs with shard=i/n, each with its own
+ * journal, and the journals merged at the end with merge=..., e.g.
+ * java -Dgroup23.quiet=true group23.tournament.Tournament domain=party_domain.xml profiles=party1_utility.xml,...
+ *     parties=3 agents=group23.Agent23,agents.anac.y2015.group2.Group2,... repeats=10 journal=results-0.tsv shard=0/4
+ * java group23.tournament.Tournament merge=results.tsv journals=results-0.tsv,results-1.tsv,results-2.tsv,results-3.tsv
+ */
+public class Tournament {
+	private final List<Scenario> scenarios;
+	private final List<String> agents;
+	private final Deadline deadline;
+	private final int repeats;
+	private final boolean repetition;
+	private final long seed;
+
+	/**
+	 * One session of the tournament, by its place in the schedule
+	 */
+	public static class Session {
+		private final String key;
+		private final Scenario scenario;
+		private final List<String> agents;
+		private final long seed;
+
+		Session(String key, Scenario scenario, List<String> agents, long seed) {
+			this.key = key;
+			this.scenario = scenario;
+			this.agents = agents;
+			this.seed = seed;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		LocalSession create(Deadline deadline) {
+			List<NegotiationParty> parties = new ArrayList<>();
+			List<AbstractUtilitySpace> profiles = new ArrayList<>();
+			for (int i = 0; i < agents.size(); i++) {
+				parties.add(Parties.byName(agents.get(i)).get());
+				profiles.add(scenario.getProfile(i));
+			}
+			return new LocalSession(parties, profiles, deadline, seed);
+		}
+	}
+
+	/**
+	 * @param repetition whether an agent may play against itself
+	 */
+	public Tournament(List<Scenario> scenarios, List<String> agents, Deadline deadline, int repeats, boolean repetition, long seed) {
+		if (scenarios.isEmpty() || agents.isEmpty()) throw new IllegalArgumentException("Need scenarios and agents");
+		if (new HashSet<>(agents).size() != agents.size()) throw new IllegalArgumentException("Agents must be listed once each, see repetition=");
+		this.scenarios = new ArrayList<>(scenarios);
+		this.agents = new ArrayList<>(agents);
+		this.deadline = deadline;
+		this.repeats = repeats;
+		this.repetition = repetition;
+		this.seed = seed;
+	}
+
+	/**
+	 * Every session in a fixed order, the same in every JVM
+	 */
+	public List<Session> schedule() {
+		List<Session> sessions = new ArrayList<>();
+		for (Scenario scenario : scenarios) {
+			for (List<Integer> order : orders(scenario.size())) {
+				List<String> names = new ArrayList<>();
+				for (int index : order) names.add(agents.get(index));
+				for (int r = 0; r < repeats; r++) {
+					String key = String.join("/", scenario.getName(), String.join("+", names), deadline.getValue() + " " + deadline.getType(), "seed" + seed, "r" + r);
+					sessions.add(new Session(key, scenario, names, seed + key.hashCode()));
+				}
+			}
+		}
+		return sessions;
+	}
+
+	/**
+	 * Every ordered choice of parties agents
+	 */
+	private List<List<Integer>> orders(int parties) {
+		List<List<Integer>> orders = new ArrayList<>();
+		order(new ArrayList<>(), parties, orders);
+		return orders;
+	}
+
+	private void order(List<Integer> prefix, int parties, List<List<Integer>> orders) {
+		if (prefix.size() == parties) {
+			orders.add(new ArrayList<>(prefix));
+			return;
+		}
+		for (int a = 0; a < agents.size(); a++) {
+			if (!repetition && prefix.contains(a)) continue;
+			prefix.add(a);
+			order(prefix, parties, orders);
+			prefix.remove(prefix.size() - 1);
+		}
+	}
+
+	/**
+	 * Play this shard's sessions that aren't in the journal yet, recording each as it finishes.
+	 * Returns the number played.
+	 */
+	public int run(ResultsJournal journal, int shard, int shards, SessionExecutor executor) throws Exception {
+		// Sessions that failed are played again
+		Map<String, ResultsJournal.Entry> done = ResultsJournal.read(journal.getFile());
+		done.values().removeIf(entry -> entry.getError() != null);
+		List<Session> schedule = schedule();
+
+		List<Future<SessionResult>> futures = new ArrayList<>();
+		for (int i = shard; i < schedule.size(); i += shards) {
+			Session session = schedule.get(i);
+			if (done.containsKey(session.getKey())) continue;
+			futures.add(executor.submit(() -> session.create(deadline), result -> {
+				try {
+					journal.append(session.getKey(), result);
+				} catch (Exception e) {
+					throw new IllegalStateException("Failed to journal " + session.getKey(), e);
+				}
+			}));
+		}
+
+		for (Future<SessionResult> future : futures) future.get();
+		System.out.println(String.format("Played %d session(s), %d were already in %s", futures.size(), done.size(), journal.getFile()));
+		return futures.size();
+	}
+
+	/**
+	 * Mean utility and agreement rate per agent over the entries, leaving out sessions that failed
+	 */
+	public static String summarise(Map<String, ResultsJournal.Entry> entries) {
+		Map<String, double[]> totals = new TreeMap<>();
+		int failed = 0;
+		for (ResultsJournal.Entry entry : entries.values()) {
+			if (entry.getError() != null) {
+				failed++;
+				continue;
+			}
+			for (int i = 0; i < entry.getParties().size(); i++) {
+				double[] total = totals.computeIfAbsent(entry.getParties().get(i), name -> new double[3]);
+				total[0] += entry.getUtility(i);
+				total[1] += entry.isAgreement() ? 1 : 0;
+				total[2] += 1;
+			}
+		}
+
+		StringBuilder builder = new StringBuilder(String.format("%d session(s), %d failed and left out%n", entries.size() - failed, failed));
+		totals.forEach((name, total) -> builder.append(String.format("%-60s sessions=%-6d utility=%.4f agreements=%.1f%%%n", name, (long) total[2], total[0] / total[2], 100 * total[1] / total[2])));
+		return builder.toString();
+	}
+
+	public static void main(String[] args) throws Exception {
+		Arguments arguments = new Arguments(args);
+
+		if (arguments.has("merge")) {
+			List<File> journals = new ArrayList<>();
+			for (String name : arguments.getList("journals")) journals.add(new File(name));
+			System.out.print(summarise(ResultsJournal.merge(journals, new File(arguments.get("merge")))));
+			return;
+		}
+
+		DomainGenerator.apply(arguments);
+		List<Scenario> scenarios = Scenario.split(arguments.get("domain"), arguments.getList("profiles"), arguments.getInt("parties", Scenario.PARTIES));
+		Deadline deadline = arguments.has("seconds") ? new Deadline(arguments.getInt("seconds", 0), DeadlineType.TIME) : new Deadline(arguments.getInt("rounds", 180), DeadlineType.ROUND);
+		Tournament tournament = new Tournament(scenarios, arguments.getList("agents"), deadline, arguments.getInt("repeats", 1), Boolean.parseBoolean(arguments.get("repetition", "false")), arguments.getLong("seed", 23));
+
+		String[] shard = arguments.get("shard", "0/1").split("/");
+		int index = Integer.parseInt(shard[0]), shards = Integer.parseInt(shard[1]);
+		if (index < 0 || index >= shards) throw new IllegalArgumentException("Shard must be i/n with 0 <= i < n");
+
+		String mode = arguments.get("mode", "auto");
+		File file = new File(arguments.get("journal", "results" + (shards > 1 ? "-" + index : "") + ".tsv"));
+		try (ResultsJournal journal = new ResultsJournal(file);
+			 SessionExecutor executor = SessionExecutor.create(mode, arguments.getInt("threads", Runtime.getRuntime().availableProcessors()), deadline)) {
+			tournament.run(journal, index, shards, executor);
+		}
+		System.out.print(summarise(ResultsJournal.read(file)));
+	}
+}